@@ -0,0 +1,92 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크마다 독립된 in-memory H2 로 애플리케이션을 띄우고 seedSize 만큼 회원 데이터를 채운다.
+ * SQL 로그와 p6spy 는 측정값을 왜곡하므로 모두 끈다.
+ */
+public final class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+    private static final int CHUNK_SIZE = 1_000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(int seedSize, String... extraProperties) {
+        return start(WebApplicationType.NONE, seedSize, extraProperties);
+    }
+
+    // HTTP 부하 벤치마크용. 임의 포트로 내장 톰캣까지 띄운다. (포트는 local.server.port 로 조회)
+    public static ConfigurableApplicationContext startWeb(int seedSize, String... extraProperties) {
+        List<String> properties = new ArrayList<>(Arrays.asList(extraProperties));
+        properties.add("server.port=0");
+        return start(WebApplicationType.SERVLET, seedSize, properties.toArray(new String[0]));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, int seedSize, String... extraProperties) {
+        List<String> properties = new ArrayList<>(Arrays.asList(
+            "spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+            "spring.datasource.username=sa",
+            "spring.datasource.password=",
+            "spring.jpa.show-sql=false",
+            "spring.jpa.open-in-view=false",
+            "spring.jpa.properties.hibernate.format_sql=false",
+            "logging.level.org.hibernate.type.descriptor.sql=info",
+            "decorator.datasource.enabled=false",
+            "spring.main.banner-mode=off"
+        ));
+        properties.addAll(Arrays.asList(extraProperties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+            .web(webApplicationType)
+            .properties(properties.toArray(new String[0]))
+            .run();
+
+        seed(context, seedSize);
+        return context;
+    }
+
+    // 팀 이름은 team0 ~ team9, 나이는 0 ~ 99 로 고르게 분포시킨다.
+    private static void seed(ConfigurableApplicationContext context, int seedSize) {
+        EntityManager em = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        for (int from = 0; from < seedSize; from += CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(seedSize, from + CHUNK_SIZE);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = start; i < end; i++) {
+                    Member member = new Member("member" + i, i % 100);
+                    member.setTeam(em.getReference(Team.class, teamIds.get(i % TEAM_COUNT)));
+                    em.persist(member);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기본 설정(SQL 로그 / 바인딩 trace / p6spy 로그 켜짐, 풀 기본값)과 prod 프로필의 튜닝 설정을 같은 부하에서 비교한다.
+ * H2 라 MySQL 드라이버 옵션(cachePrepStmts 등)은 빠지고, 로그 / 풀 / Hibernate JDBC 설정 차이만 측정된다.
+ * 예) ./gradlew jmh -Pbenchmarks=ConnectionSettingsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class ConnectionSettingsBenchmark {
+
+    @Param({"10000"})
+    public int seedSize;
+
+    @Param({"default", "tuned"})
+    public String settings;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+    private MemberSearchCondition condition;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(seedSize, "default".equals(settings) ? defaultSettings() : tunedSettings());
+        memberRepository = context.getBean(MemberRepository.class);
+        em = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(20);
+    }
+
+    // 이 설정을 넣기 전 application.yml 과 같은 상태
+    private static String[] defaultSettings() {
+        return new String[]{
+            "spring.jpa.show-sql=true",
+            "spring.jpa.properties.hibernate.format_sql=true",
+            "logging.level.org.hibernate.type.descriptor.sql=trace",
+            "decorator.datasource.enabled=true"
+        };
+    }
+
+    // application-prod.yml 과 같은 값 (DB 종류에 묶인 설정 제외)
+    private static String[] tunedSettings() {
+        return new String[]{
+            "decorator.datasource.enabled=true",
+            "decorator.datasource.p6spy.enable-logging=false",
+            "spring.datasource.hikari.maximum-pool-size=20",
+            "spring.datasource.hikari.minimum-idle=20",
+            "spring.jpa.properties.hibernate.jdbc.fetch_size=500",
+            "spring.jpa.properties.hibernate.query.in_clause_parameter_padding=true",
+            "spring.jpa.properties.hibernate.generate_statistics=false"
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, PageRequest.of(5, 20));
+    }
+
+    @Benchmark
+    public int insertBatch() {
+        return transactionTemplate.execute(status -> {
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("bench", i));
+            }
+            return 100;
+        });
+    }
+}
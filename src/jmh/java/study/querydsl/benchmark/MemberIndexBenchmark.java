@@ -0,0 +1,116 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.memory.MemberIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB 없이 MemberIndex 만 측정한다. 빌드 시간, 인덱스 크기(footprintBytes), 빌드 전후 힙 사용량은 보조 카운터로 결과에 함께 나온다.
+ * 검색 조건은 seedSize 와 무관하게 결과 k 가 고정되도록 잡아서 O(log n) 부분만 보이게 한다.
+ * 예) ./gradlew jmh -Pbenchmarks=MemberIndexBenchmark -PseedSizes=10000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MemberIndexBenchmark {
+
+    private static final int TEAM_COUNT = 100;
+    private static final int RARE_AGE = 150; // 일반 회원(0 ~ 99 세)과 겹치지 않는 나이
+    private static final int RARE_COUNT = 10; // RARE_AGE 인 team7 회원 수 (= teamAndAge, ageRange 의 결과 k)
+
+    @Param({"1000000", "10000000"})
+    public int seedSize;
+
+    private MemberIndex index;
+    private long buildMillis;
+    private long heapDeltaBytes;
+    private MemberSearchCondition byUsername;
+    private MemberSearchCondition byTeamAndAge;
+    private MemberSearchCondition byAgeRange;
+
+    @Setup
+    public void setUp() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long startedAt = System.nanoTime();
+
+        MemberIndex.Builder builder = MemberIndex.builder(seedSize);
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            builder.addTeam(i + 1, "team" + i);
+        }
+        for (int i = 0; i < seedSize; i++) {
+            builder.addMember(i + 1, "member" + i, i % 100, (long) (i % TEAM_COUNT) + 1);
+        }
+        for (int i = 0; i < RARE_COUNT; i++) {
+            builder.addMember(seedSize + i + 1, "rare" + i, RARE_AGE, 8L); // team7
+        }
+        index = builder.build();
+
+        buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        System.gc();
+        heapDeltaBytes = runtime.totalMemory() - runtime.freeMemory() - usedBefore;
+
+        // k = 1
+        byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member" + (seedSize / 2));
+
+        // k = RARE_COUNT. team7 회원은 n / 100 명이지만 그중 RARE_AGE 는 RARE_COUNT 명뿐이다.
+        byTeamAndAge = new MemberSearchCondition();
+        byTeamAndAge.setTeamName("team7");
+        byTeamAndAge.setAgeGoe(RARE_AGE);
+        byTeamAndAge.setAgeLoe(RARE_AGE);
+
+        // k = RARE_COUNT. 전체 row 에서 이진 탐색으로 시작한다.
+        byAgeRange = new MemberSearchCondition();
+        byAgeRange.setAgeGoe(RARE_AGE);
+        byAgeRange.setAgeLoe(RARE_AGE);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> username(IndexCounters counters) {
+        return index.search(byUsername, id -> false);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamAndAge(IndexCounters counters) {
+        return index.search(byTeamAndAge, id -> false);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> ageRange(IndexCounters counters) {
+        return index.search(byAgeRange, id -> false);
+    }
+
+    // 인덱스는 셋업에서 한 번만 만들므로 iteration 마다 같은 값을 싣는다.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class IndexCounters {
+
+        public long footprintBytes;
+        public long heapDeltaBytes;
+        public long buildMillis;
+
+        @Setup(Level.Iteration)
+        public void record(MemberIndexBenchmark benchmark) {
+            footprintBytes = benchmark.index.footprintBytes();
+            heapDeltaBytes = benchmark.heapDeltaBytes;
+            buildMillis = benchmark.buildMillis;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 요청이 톰캣 스레드 수보다 많을 때 /v1, /v3/members 처리량을 direct / pool 실행 모드로 비교한다.
+ * 톰캣 스레드를 일부러 작게 잡아서 요청 스레드가 JDBC 에 묶이는 구간을 드러낸다.
+ * 예) ./gradlew jmh -Pbenchmarks=MemberSearchLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+public class MemberSearchLoadBenchmark {
+
+    @Param({"100000"})
+    public int seedSize;
+
+    @Param({"direct", "pool"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI v1Uri;
+    private URI v3Uri;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.startWeb(seedSize,
+            "app.member-search-executor.mode=" + mode,
+            "app.member-search-executor.max-concurrency=10",
+            "app.query-budget.mode=off",
+            "server.tomcat.threads.max=16",
+            "server.tomcat.accept-count=1000",
+            "spring.datasource.hikari.maximum-pool-size=10");
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        v1Uri = URI.create("http://localhost:" + port + "/v1/members?teamName=team3&ageGoe=20&ageLoe=60");
+        v3Uri = URI.create("http://localhost:" + port + "/v3/members?teamName=team3&ageGoe=20&page=10&size=20");
+        client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int searchV1() throws IOException, InterruptedException {
+        return get(v1Uri);
+    }
+
+    @Benchmark
+    public int searchPageV3() throws IOException, InterruptedException {
+        return get(v3Uri);
+    }
+
+    private int get(URI uri) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("unexpected status " + response.statusCode() + " " + uri);
+        }
+        return response.body().length();
+    }
+}
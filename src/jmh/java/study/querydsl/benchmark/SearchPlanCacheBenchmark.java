@@ -0,0 +1,106 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberSearchPlanCache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 매번 Querydsl 로 JPQL 을 만드는 기존 경로와 shape 별로 캐시된 JPQL 에 값만 바인딩하는 경로를 비교한다.
+ * 16 가지 shape 를 돌려가며 호출하므로 결과 로우 매핑 비용은 두 경로에 똑같이 포함된다.
+ * cachedPlan 의 플랜 캐시 hit / miss 수는 보조 카운터(planCacheHits, planCacheMisses)로 결과에 함께 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SearchPlanCacheBenchmark {
+
+    @Param({"10000"})
+    public int seedSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchPlanCache planCache;
+    private MemberSearchCondition[] conditions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(seedSize);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        planCache = context.getBean(MemberSearchPlanCache.class);
+
+        // shape 의 각 비트가 username / teamName / ageGoe / ageLoe 조건 하나씩에 대응한다.
+        conditions = new MemberSearchCondition[16];
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((shape & 1) != 0) {
+                condition.setUsername("member" + shape);
+            }
+            if ((shape & 2) != 0) {
+                condition.setTeamName("team" + (shape % BenchmarkContext.TEAM_COUNT));
+            }
+            if ((shape & 4) != 0) {
+                condition.setAgeGoe(shape);
+            }
+            if ((shape & 8) != 0) {
+                condition.setAgeLoe(shape);
+            }
+            conditions[shape] = condition;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> querydslEveryCall() {
+        return memberJpaRepository.searchByWhereParam(nextCondition());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> cachedPlan(PlanCacheCounters counters) {
+        long hits = planCache.getHitCount();
+        long misses = planCache.getMissCount();
+        List<MemberTeamDto> result = planCache.search(nextCondition());
+        counters.planCacheHits += planCache.getHitCount() - hits;
+        counters.planCacheMisses += planCache.getMissCount() - misses;
+        return result;
+    }
+
+    private MemberSearchCondition nextCondition() {
+        next = (next + 1) & 15;
+        return conditions[next];
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PlanCacheCounters {
+
+        public long planCacheHits;
+        public long planCacheMisses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            planCacheHits = 0;
+            planCacheMisses = 0;
+        }
+    }
+}
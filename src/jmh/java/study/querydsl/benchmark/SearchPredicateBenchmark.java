@@ -0,0 +1,81 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberSearchPredicates;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 한 번당 where 절을 만드는 비용. 매번 BooleanExpression 을 새로 만드는 방식과 shape 별로 캐시된 조건식에 값만 바인딩하는 방식을 비교한다.
+ * 할당량은 gc 프로파일러로 본다. (gc.alloc.rate.norm = 호출 1회당 할당 바이트)
+ * 예) ./gradlew jmh -Pbenchmarks=SearchPredicateBenchmark -Pprofilers=gc
+ * DB 까지 포함한 검색 1회당 할당량은 -Pbenchmarks=MemberSearchBenchmark -Pprofilers=gc 로 커밋 전후를 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SearchPredicateBenchmark {
+
+    private MemberSearchCondition condition;
+
+    @Setup
+    public void setUp() {
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(60);
+    }
+
+    @Benchmark
+    public JPAQuery<Member> freshPredicates() {
+        return new JPAQuery<Member>()
+            .select(member)
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
+    }
+
+    @Benchmark
+    public JPAQuery<Member> cachedPredicates() {
+        JPAQuery<Member> query = new JPAQuery<Member>()
+            .select(member)
+            .from(member)
+            .leftJoin(member.team, team);
+        return MemberSearchPredicates.where(query, condition);
+    }
+
+    // 이전 리포지토리 코드와 같은 방식
+    private static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.CacheRegionStatsDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.CountStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 회원 검색 API 결과 캐시. (app.member-search-cache.enabled=true 일 때만 동작)
+ * 엔드포인트별로 크기 / TTL 제한이 있는 Caffeine 캐시(W-TinyLFU)를 따로 두고,
+ * 회원 / 팀 변경이 커밋되면 MemberSearchCacheInvalidator 가 전체를 비운다. (ChangeFeed 구독)
+ */
+@Slf4j
+@Component
+public class MemberSearchCache {
+
+    private final boolean enabled;
+    private final long maximumSize;
+    private final long ttlSeconds;
+    private final Map<String, Cache<MemberSearchCacheKey, Object>> caches = new ConcurrentHashMap<>();
+
+    // 조회 도중 무효화가 일어나면 그 조회 결과는 캐시에 남기지 않기 위한 세대 번호
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchCache(@Value("${app.member-search-cache.enabled:false}") boolean enabled,
+                             @Value("${app.member-search-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${app.member-search-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maximumSize = maximumSize;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String endpoint, MemberSearchCondition condition, Pageable pageable, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Cache<MemberSearchCacheKey, Object> cache = caches.computeIfAbsent(endpoint, name -> Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build());
+
+        MemberSearchCacheKey key = MemberSearchCacheKey.of(condition, pageable);
+        long loadGeneration = generation.get();
+        Object value = cache.get(key, k -> loader.get());
+
+        if (generation.get() != loadGeneration) {
+            cache.invalidate(key);
+        }
+        return (T) value;
+    }
+
+    // /v3/members 는 count 방식마다 total 이 다르므로 캐시 영역을 나눈다.
+    public static String v3Endpoint(CountStrategy count) {
+        return count == CountStrategy.EXACT ? "v3" : "v3-" + count.name().toLowerCase();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+
+        generation.incrementAndGet();
+        caches.values().forEach(Cache::invalidateAll);
+        log.debug("member search cache invalidated");
+    }
+
+    public List<CacheRegionStatsDto> stats() {
+        List<CacheRegionStatsDto> result = new ArrayList<>();
+        caches.forEach((endpoint, cache) -> {
+            CacheStats stats = cache.stats();
+            result.add(new CacheRegionStatsDto(
+                endpoint, stats.hitCount(), stats.missCount(), stats.loadSuccessCount(), cache.estimatedSize()));
+        });
+        return result;
+    }
+}
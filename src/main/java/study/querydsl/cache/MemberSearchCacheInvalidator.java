@@ -0,0 +1,29 @@
+package study.querydsl.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.ChangeBatch;
+import study.querydsl.change.ChangeSubscriber;
+
+/**
+ * 회원 / 팀 변경이 커밋되면 검색 결과 캐시를 비운다.
+ * ChangeFeed 를 구독하므로 엔티티 변경뿐 아니라 changed() / bulkChanged() 로 알려진 벌크 update / delete 도 반영된다.
+ * 전달은 change-feed 스레드에서 하므로 커밋 직후 아주 잠깐은 이전 결과가 캐시에서 나갈 수 있다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchCacheInvalidator implements ChangeSubscriber {
+
+    private final MemberSearchCache memberSearchCache;
+
+    @Override
+    public boolean isActive() {
+        return memberSearchCache.isEnabled();
+    }
+
+    // 캐시 키가 검색 조건이라 어떤 결과가 영향을 받는지 알 수 없으므로 묶음 하나에 한 번 전체를 비운다.
+    @Override
+    public void onChanges(ChangeBatch batch) {
+        memberSearchCache.invalidateAll();
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.cache;
+
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberSearchPredicates;
+
+/**
+ * 검색 조건 + 페이지 정보를 정규화한 캐시 키.
+ * 조회 쿼리와 똑같이 빈 문자열 / 공백 문자열은 조건이 없는 것으로 본다.
+ */
+@Value
+public class MemberSearchCacheKey {
+
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+    long offset;
+    int pageSize;
+    String sort;
+
+    public static MemberSearchCacheKey of(MemberSearchCondition condition, Pageable pageable) {
+        boolean paged = pageable != null && pageable.isPaged();
+        MemberSearchCondition normalized = MemberSearchPredicates.normalize(condition);
+        return new MemberSearchCacheKey(
+            normalized.getUsername(),
+            normalized.getTeamName(),
+            normalized.getAgeGoe(),
+            normalized.getAgeLoe(),
+            paged ? pageable.getOffset() : -1,
+            paged ? pageable.getPageSize() : -1,
+            pageable == null ? "" : pageable.getSort().toString());
+    }
+}
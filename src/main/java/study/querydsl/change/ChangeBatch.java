@@ -0,0 +1,28 @@
+package study.querydsl.change;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 커밋된 트랜잭션 하나의 변경 묶음. events 는 flush 된 순서이고 sequence 는 발행 순서대로 1 씩 증가한다.
+ */
+@Getter
+@ToString
+public class ChangeBatch {
+
+    private final long sequence;
+    private final List<ChangeEvent> events;
+
+    public ChangeBatch(long sequence, List<ChangeEvent> events) {
+        this.sequence = sequence;
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    // 벌크 변경이 섞여 있으면 건별 반영만으로는 최신 상태를 만들 수 없다.
+    public boolean hasBulk() {
+        return events.stream().anyMatch(event -> event.getType() == ChangeType.BULK);
+    }
+}
@@ -0,0 +1,6 @@
+package study.querydsl.change;
+
+public enum ChangeEntity {
+    MEMBER,
+    TEAM
+}
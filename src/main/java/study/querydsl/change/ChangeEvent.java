@@ -0,0 +1,47 @@
+package study.querydsl.change;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 회원 / 팀 한 건의 변경. 회원은 변경 전후 스냅샷(before / after), 팀은 변경 전후 이름을 담는다.
+ * INSERT 는 before 가, DELETE 는 after 가 없다. 엔티티를 detach 상태로 update 한 경우처럼 이전 값을 모르면 UPDATE 의 before 도 null 이다.
+ */
+@Getter
+@ToString
+public class ChangeEvent {
+
+    private final ChangeType type;
+    private final ChangeEntity entity;
+    private final Long id; // BULK 이면 null
+    private final MemberSnapshot memberBefore;
+    private final MemberSnapshot memberAfter;
+    private final String teamNameBefore;
+    private final String teamNameAfter;
+    private final String description; // BULK 일 때 어떤 작업이었는지
+
+    private ChangeEvent(ChangeType type, ChangeEntity entity, Long id,
+                        MemberSnapshot memberBefore, MemberSnapshot memberAfter,
+                        String teamNameBefore, String teamNameAfter, String description) {
+        this.type = type;
+        this.entity = entity;
+        this.id = id;
+        this.memberBefore = memberBefore;
+        this.memberAfter = memberAfter;
+        this.teamNameBefore = teamNameBefore;
+        this.teamNameAfter = teamNameAfter;
+        this.description = description;
+    }
+
+    public static ChangeEvent member(ChangeType type, Long id, MemberSnapshot before, MemberSnapshot after) {
+        return new ChangeEvent(type, ChangeEntity.MEMBER, id, before, after, null, null, null);
+    }
+
+    public static ChangeEvent team(ChangeType type, Long id, String nameBefore, String nameAfter) {
+        return new ChangeEvent(type, ChangeEntity.TEAM, id, null, null, nameBefore, nameAfter, null);
+    }
+
+    public static ChangeEvent bulk(ChangeEntity entity, String description) {
+        return new ChangeEvent(ChangeType.BULK, entity, null, null, null, null, null, description);
+    }
+}
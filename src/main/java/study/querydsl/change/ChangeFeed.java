@@ -0,0 +1,318 @@
+package study.querydsl.change;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 / 팀 변경을 트랜잭션 단위로 모아서 커밋된 뒤에 ChangeSubscriber 들에게 순서대로 전달한다.
+ * 엔티티 변경은 flush 시점의 Hibernate 이벤트 리스너로, JPQL / JDBC 벌크 변경은 해당 코드가 changed() / bulkChanged() 를 호출해서 알린다.
+ * 롤백된 트랜잭션의 변경은 버린다. 한 트랜잭션의 변경이 max-batch-size 를 넘으면 건별 이벤트 대신 BULK 하나로 합친다.
+ * 커밋한 스레드는 sequence 를 매겨 전달 큐에 넣기만 하고, 구독자는 전달 전용 스레드 하나(change-feed)에서 sequence 순서대로 호출된다.
+ * 그래서 구독자가 다시 읽느라 새 트랜잭션을 열어도 커밋한 스레드의 커넥션이나 다른 커밋을 붙잡지 않는다.
+ * 변경을 기록한 트랜잭션은 끝날 때까지(커밋 후 sequence 를 받을 때까지) commitLock 의 읽기 lock 을 잡는다.
+ * 다시 읽는 구독자는 readConsistently() 로 "보인 커밋 = 받은 sequence 이하" 인 시점에 읽을 수 있다.
+ */
+@Slf4j
+@Component
+public class ChangeFeed implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<ChangeSubscriber> subscriberProvider;
+    private final int maxBatchSize;
+    private final long consistentReadTimeoutMillis;
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<ChangeSubscriber> subscribers;
+    private long sequence;
+
+    public ChangeFeed(EntityManagerFactory emf,
+                      ObjectProvider<ChangeSubscriber> subscriberProvider,
+                      @Value("${app.change-feed.max-batch-size:10000}") int maxBatchSize,
+                      @Value("${app.change-feed.consistent-read-timeout-ms:5000}") long consistentReadTimeoutMillis) {
+        this.emf = emf;
+        this.subscriberProvider = subscriberProvider;
+        this.maxBatchSize = maxBatchSize;
+        this.consistentReadTimeoutMillis = consistentReadTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 이미 커밋된 변경은 구독자에게 마저 전달한다.
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * JPQL 벌크 update / delete 처럼 Hibernate 이벤트는 생기지 않지만 바뀐 row 를 아는 변경을 건별 이벤트로 알린다.
+     * 구독자는 다시 읽지 않고 건별로 반영할 수 있다.
+     */
+    public void changed(List<ChangeEvent> events) {
+        events.forEach(this::record);
+    }
+
+    /**
+     * JPQL 벌크 update / delete, JDBC insert 처럼 어떤 row 가 바뀌었는지 모르는 변경을 알린다.
+     * 트랜잭션 안이면 커밋 후에, 밖이면(이미 커밋된 작업) 바로 전달한다.
+     */
+    public void bulkChanged(ChangeEntity entity, String description) {
+        record(ChangeEvent.bulk(entity, description));
+    }
+
+    // 바뀐 row 를 건별로 알려도 구독자가 받을지. 아니면 건별 이벤트를 만들려고 변경 전 값을 읽을 필요가 없다.
+    public boolean hasActiveSubscribers() {
+        return !activeSubscribers().isEmpty();
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * 변경을 기록하고 아직 끝나지 않은 트랜잭션이 없을 때 read 를 실행하고, 그때까지 발행된 마지막 sequence 를 돌려준다.
+     * read 에 보인 커밋은 모두 이 sequence 이하의 묶음이고, 더 큰 sequence 의 커밋은 read 에 보이지 않는다.
+     * 변경을 기록한 트랜잭션 안에서 호출하면 안 된다. 진행 중인 트랜잭션이 consistent-read-timeout-ms 안에 끝나지 않으면 IllegalStateException 을 던진다.
+     * 비용: write lock 을 기다리기 시작한 순간부터 read 가 끝날 때까지 앱 전체에서 회원 / 팀을 처음 바꾸는 트랜잭션은
+     * flush 중 Hibernate 이벤트 리스너(record)에서 멈추고, 그동안 풀 커넥션과 이미 잡은 row lock 을 그대로 들고 있다.
+     * 최악의 경우 consistent-read-timeout-ms + read 시간만큼 쓰기가 멈추므로 read 는 짧은 집계 쿼리여야 하고,
+     * 제한 시간은 커넥션 풀 크기와 connection-timeout 을 생각해서 정한다.
+     * read 가 보는 DB 가 primary 여야 위 보장이 성립한다. replica 로 라우팅되는 readOnly 트랜잭션 안에서 부르면 안 된다.
+     */
+    public long readConsistently(Runnable read) {
+        try {
+            if (!commitLock.writeLock().tryLock(consistentReadTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("in-flight transactions did not finish within " + consistentReadTimeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+
+        try {
+            read.run();
+            synchronized (this) {
+                return sequence;
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 지금까지 발행된 묶음이 모든 구독자에게 전달될 때까지 기다린다. 제한 시간 안에 끝나지 않으면 false.
+     */
+    public boolean awaitDelivery(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            dispatcher.submit(() -> { }).get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            record(ChangeEvent.member(ChangeType.INSERT, (Long) event.getId(),
+                null, memberSnapshot((Long) event.getId(), event.getState(), event.getPersister())));
+        } else if (entity instanceof Team) {
+            record(ChangeEvent.team(ChangeType.INSERT, (Long) event.getId(),
+                null, teamName(event.getState(), event.getPersister())));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        Long id = (Long) event.getId();
+        if (entity instanceof Member) {
+            record(ChangeEvent.member(ChangeType.UPDATE, id,
+                memberSnapshot(id, event.getOldState(), event.getPersister()),
+                memberSnapshot(id, event.getState(), event.getPersister())));
+        } else if (entity instanceof Team) {
+            record(ChangeEvent.team(ChangeType.UPDATE, id,
+                teamName(event.getOldState(), event.getPersister()),
+                teamName(event.getState(), event.getPersister())));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        Long id = (Long) event.getId();
+        if (entity instanceof Member) {
+            record(ChangeEvent.member(ChangeType.DELETE, id,
+                memberSnapshot(id, event.getDeletedState(), event.getPersister()), null));
+        } else if (entity instanceof Team) {
+            record(ChangeEvent.team(ChangeType.DELETE, id,
+                teamName(event.getDeletedState(), event.getPersister()), null));
+        }
+    }
+
+    // Hibernate 5.6 의 PostActionEventListener 가 철자가 틀린 이 메서드를 아직 abstract 로 선언하고 있어서 구현해야 한다.
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(ChangeEvent event) {
+        if (activeSubscribers().isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(Collections.singletonList(event));
+            return;
+        }
+
+        Collector collector = (Collector) TransactionSynchronizationManager.getResource(this);
+        if (collector == null) {
+            // 커밋되어 sequence 를 받을 때까지 readConsistently() 가 끼어들지 못하게 한다. (afterCompletion 에서 푼다)
+            commitLock.readLock().lock();
+            collector = new Collector();
+            TransactionSynchronizationManager.bindResource(this, collector);
+            TransactionSynchronizationManager.registerSynchronization(collector);
+        }
+        collector.add(event);
+    }
+
+    // sequence 를 매기는 순서와 큐에 넣는 순서가 같아야 하므로 둘을 한 lock 안에서 한다. 전달은 기다리지 않는다.
+    private synchronized void publish(List<ChangeEvent> events) {
+        ChangeBatch batch = new ChangeBatch(++sequence, events);
+        dispatcher.execute(() -> deliver(batch));
+    }
+
+    private void deliver(ChangeBatch batch) {
+        for (ChangeSubscriber subscriber : activeSubscribers()) {
+            try {
+                subscriber.onChanges(batch);
+            } catch (RuntimeException e) {
+                // 이미 커밋된 뒤이므로 되돌릴 수 없다. 구독자는 실패하면 스스로 DB 조회로 물러나고 다음 묶음에서 다시 적재한다.
+                log.error("change subscriber failed. subscriber={}, sequence={}", subscriber.getClass().getSimpleName(), batch.getSequence(), e);
+            }
+        }
+    }
+
+    private List<ChangeSubscriber> activeSubscribers() {
+        List<ChangeSubscriber> all = subscribers;
+        if (all == null) {
+            all = subscriberProvider.orderedStream().collect(Collectors.toList());
+            subscribers = all;
+        }
+        return all.stream().filter(ChangeSubscriber::isActive).collect(Collectors.toList());
+    }
+
+    private static MemberSnapshot memberSnapshot(Long id, Object[] state, EntityPersister persister) {
+        if (state == null) {
+            return null;
+        }
+        return new MemberSnapshot(id,
+            (String) state[persister.getEntityMetamodel().getPropertyIndex("username")],
+            (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")],
+            MemberSnapshot.teamIdOf((Team) state[persister.getEntityMetamodel().getPropertyIndex("team")]));
+    }
+
+    private static String teamName(Object[] state, EntityPersister persister) {
+        return state == null ? null : (String) state[persister.getEntityMetamodel().getPropertyIndex("name")];
+    }
+
+    /**
+     * 트랜잭션 하나의 변경을 모은다. REQUIRES_NEW 로 바깥 트랜잭션이 잠시 멈추면 리소스 바인딩도 같이 풀었다가 되돌린다.
+     */
+    private class Collector implements TransactionSynchronization {
+
+        private List<ChangeEvent> events = new ArrayList<>();
+        private boolean collapsed;
+
+        void add(ChangeEvent event) {
+            if (collapsed) {
+                return;
+            }
+            if (events.size() >= maxBatchSize) {
+                // 어느 구독자도 건별로 따라가기 어려운 양이므로 다시 읽으라는 신호 하나로 바꾼다.
+                events = new ArrayList<>(Collections.singletonList(
+                    ChangeEvent.bulk(event.getEntity(), "more than " + maxBatchSize + " changes in one transaction")));
+                collapsed = true;
+                return;
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(ChangeFeed.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(ChangeFeed.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeed.this);
+            try {
+                if (status == STATUS_COMMITTED && !events.isEmpty()) {
+                    publish(events);
+                }
+            } finally {
+                commitLock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.change;
+
+/**
+ * ChangeFeed 가 커밋된 변경 묶음을 전달하는 대상. 빈으로 등록하면 자동으로 구독된다.
+ * onChanges 는 ChangeFeed 의 전달 스레드 하나에서 묶음 순서대로 하나씩 호출된다. 커밋한 스레드와는 별개이므로 새 트랜잭션을 열어 다시 읽어도 되지만,
+ * 그동안 뒤의 묶음은 밀린다.
+ */
+public interface ChangeSubscriber {
+
+    void onChanges(ChangeBatch batch);
+
+    // 활성화된 구독자가 하나도 없으면 ChangeFeed 는 변경을 모으지 않는다.
+    default boolean isActive() {
+        return true;
+    }
+}
@@ -0,0 +1,8 @@
+package study.querydsl.change;
+
+public enum ChangeType {
+    INSERT,
+    UPDATE,
+    DELETE,
+    BULK // JPQL / JDBC 로 여러 row 를 한 번에 바꿨는데 어떤 row 가 바뀌었는지 모르는 경우. 구독자는 다시 읽어야 한다.
+}
@@ -0,0 +1,37 @@
+package study.querydsl.change;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.proxy.HibernateProxy;
+import study.querydsl.entity.Team;
+
+/**
+ * 변경 시점의 회원 컬럼 값. 엔티티와 달리 이후 변경이나 영속성 컨텍스트 상태와 무관하다.
+ */
+@Getter
+@ToString
+public class MemberSnapshot {
+
+    private final Long id;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+
+    public MemberSnapshot(Long id, String username, int age, Long teamId) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+
+    // 지연 로딩 프록시를 초기화하지 않고 팀 id 만 꺼낸다.
+    public static Long teamIdOf(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.dto.CacheRegionStatsDto;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// 내부 구현(실행 계획 / 캐시 통계)을 그대로 보여주므로 app.admin-endpoints.enabled=true 일 때만 등록한다.
+@ConditionalOnProperty(name = "app.admin-endpoints.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@RestController
+public class CacheStatsController {
+
+    private final EntityManagerFactory emf;
+    private final MemberSearchCache memberSearchCache;
+
+    // Hibernate 2차 캐시 리전별 통계. hibernate.generate_statistics 가 꺼져 있으면 모두 0 이므로 빈 숫자 대신 503 으로 알린다.
+    @GetMapping("/admin/cache/stats")
+    public List<CacheRegionStatsDto> secondLevelCacheStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "hibernate.generate_statistics is disabled");
+        }
+
+        List<CacheRegionStatsDto> result = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            result.add(new CacheRegionStatsDto(
+                region,
+                regionStatistics.getHitCount(),
+                regionStatistics.getMissCount(),
+                regionStatistics.getPutCount(),
+                regionStatistics.getElementCountInMemory()));
+        }
+        return result;
+    }
+
+    // 회원 검색 API 결과 캐시의 엔드포인트별 통계 (putCount 는 캐시에 적재된 횟수)
+    @GetMapping("/admin/cache/member-search")
+    public List<CacheRegionStatsDto> memberSearchCacheStats() {
+        return memberSearchCache.stats();
+    }
+}
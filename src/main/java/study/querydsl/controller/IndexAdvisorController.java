@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.SearchShapePlanDto;
+import study.querydsl.repository.MemberSearchExplainer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// 내부 구현(실행 계획 / 캐시 통계)을 그대로 보여주므로 app.admin-endpoints.enabled=true 일 때만 등록한다.
+@ConditionalOnProperty(name = "app.admin-endpoints.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@RestController
+public class IndexAdvisorController {
+
+    private final MemberSearchExplainer memberSearchExplainer;
+
+    // 검색 조건 조합별 실행 계획. fullScanOnly=true 면 풀 스캔으로 떨어지는 조합만 보여준다.
+    @GetMapping("/admin/index-advisor")
+    public List<SearchShapePlanDto> searchPlans(@RequestParam(defaultValue = "false") boolean fullScanOnly) {
+        return memberSearchExplainer.explainAll().stream()
+            .filter(plan -> !fullScanOnly || plan.isFullScan())
+            .collect(Collectors.toList());
+    }
+}
@@ -1,15 +1,13 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.repository.BulkLoadMode;
+import study.querydsl.repository.MemberBulkLoader;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 
 // 현재 src/main/resources/application.yml 의 Profile 설정이 local 이므로 본 로직 실행시 InitMember 클래스가 생성된다.
 @Profile("local")
@@ -17,31 +15,20 @@ import javax.persistence.PersistenceContext;
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    private final MemberBulkLoader memberBulkLoader;
 
-    // @PostConstruct 과 @Transactional 부분을 구분해야한다.
-    @PostConstruct
-    public void init() {
-        initMemberService.init();
-    }
+    @Value("${app.init-member.team-count:2}")
+    private int teamCount;
 
+    @Value("${app.init-member.member-count:100}")
+    private int memberCount;
 
-    @Component
-    static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
+    @Value("${app.init-member.mode:jpa}")
+    private String mode;
 
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
-        }
+    // @PostConstruct 과 @Transactional 부분을 구분해야한다. (트랜잭션은 MemberBulkLoader 에서 시작)
+    @PostConstruct
+    public void init() {
+        memberBulkLoader.load(teamCount, memberCount, BulkLoadMode.valueOf(mode.toUpperCase()));
     }
 }
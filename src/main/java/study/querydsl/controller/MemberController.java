@@ -1,36 +1,69 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
-import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.repository.MemberJpaRepository;
-import study.querydsl.repository.MemberRepository;
+import study.querydsl.metrics.QueryBudget;
+import study.querydsl.repository.InvalidCursorException;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberQueryService;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 
 @RequiredArgsConstructor
 @RestController
 public class MemberController {
 
-    private final MemberJpaRepository memberJpaRepository;
-    private final MemberRepository memberRepository;
+    private final MemberQueryService memberQueryService;
+    private final MemberExportService memberExportService;
 
-    @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.searchByWhereParam(condition);
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    @QueryBudget(max = 1)
+    @GetMapping("/v4/members")
+    public MemberCursorResult searchMemberV4(MemberSearchCondition condition,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new InvalidCursorException("size 는 1 이상 " + MAX_CURSOR_PAGE_SIZE + " 이하여야 합니다. size=" + size);
+        }
+        return memberQueryService.searchByCursor(condition, cursor, size);
     }
 
-    @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(MemberSearchCondition condition,
+                                                               @RequestParam(defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.csv\"")
+                .body(outputStream -> memberExportService.exportCsv(condition, outputStream));
+        }
+
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> memberExportService.exportNdjson(condition, outputStream));
+        }
+
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "지원하지 않는 format 입니다. format=" + format);
     }
 
-    @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    // 잘못된 커서 / 페이지 크기만 400 으로 돌려준다. 그 외 IllegalArgumentException 은 서버 오류로 남긴다.
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidCursorException.class)
+    public String invalidCursor(InvalidCursorException e) {
+        return e.getMessage();
     }
 }
@@ -0,0 +1,47 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.metrics.QueryBudget;
+import study.querydsl.repository.CountStrategy;
+import study.querydsl.service.MemberQueryService;
+
+import java.util.List;
+
+// /v1 ~ /v3/members 를 요청 스레드에서 바로 실행하고 동기로 응답한다. (app.member-search-executor.mode=direct, 기본값)
+@ConditionalOnProperty(name = "app.member-search-executor.mode", havingValue = "direct", matchIfMissing = true)
+@RequiredArgsConstructor
+@RestController
+public class MemberSearchController {
+
+    private final MemberQueryService memberQueryService;
+    private final MemberSearchCache memberSearchCache;
+
+    @QueryBudget(max = 1)
+    @GetMapping("/v1/members")
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+        return memberSearchCache.get("v1", condition, null, () -> memberQueryService.search(condition));
+    }
+
+    @QueryBudget(max = 1)
+    @GetMapping("/v2/members")
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+        return memberSearchCache.get("v2", condition, pageable, () -> memberQueryService.searchPageSimple(condition, pageable));
+    }
+
+    @QueryBudget(max = 2)
+    @GetMapping("/v3/members")
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "EXACT") CountStrategy count) {
+        return memberSearchCache.get(MemberSearchCache.v3Endpoint(count), condition, pageable,
+            () -> memberQueryService.searchPage(condition, pageable, count));
+    }
+}
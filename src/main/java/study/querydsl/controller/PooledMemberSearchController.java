@@ -0,0 +1,64 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.metrics.QueryBudget;
+import study.querydsl.repository.CountStrategy;
+import study.querydsl.service.MemberQueryService;
+import study.querydsl.service.MemberSearchExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+// /v1 ~ /v3/members 를 검색 전용 스레드 풀에서 실행하고 비동기로 응답한다. (app.member-search-executor.mode=pool)
+@ConditionalOnProperty(name = "app.member-search-executor.mode", havingValue = "pool")
+@RequiredArgsConstructor
+@RestController
+public class PooledMemberSearchController {
+
+    private final MemberQueryService memberQueryService;
+    private final MemberSearchCache memberSearchCache;
+    private final MemberSearchExecutor memberSearchExecutor;
+
+    @QueryBudget(max = 1)
+    @GetMapping("/v1/members")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition) {
+        return memberSearchExecutor.submit(() ->
+            memberSearchCache.get("v1", condition, null, () -> memberQueryService.search(condition)));
+    }
+
+    @QueryBudget(max = 1)
+    @GetMapping("/v2/members")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+        return memberSearchExecutor.submit(() ->
+            memberSearchCache.get("v2", condition, pageable, () -> memberQueryService.searchPageSimple(condition, pageable)));
+    }
+
+    @QueryBudget(max = 2)
+    @GetMapping("/v3/members")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                                                 @RequestParam(defaultValue = "EXACT") CountStrategy count) {
+        return memberSearchExecutor.submit(() ->
+            memberSearchCache.get(MemberSearchCache.v3Endpoint(count), condition, pageable,
+                () -> memberQueryService.searchPage(condition, pageable, count)));
+    }
+
+    // 검색 풀 대기열까지 가득 찬 경우. 커넥션을 기다리며 쌓이게 두지 않고 바로 돌려보낸다.
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(RejectedExecutionException.class)
+    public String searchRejected(RejectedExecutionException e) {
+        return "검색 요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해 주세요.";
+    }
+}
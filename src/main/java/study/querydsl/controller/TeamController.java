@@ -0,0 +1,24 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.metrics.QueryBudget;
+import study.querydsl.stats.TeamStatsStore;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+public class TeamController {
+
+    private final TeamStatsStore teamStatsStore;
+
+    // app.team-stats.enabled 이면 미리 집계해둔 값을 쿼리 없이, 아니면 group by 쿼리 한 번으로 돌려준다.
+    @QueryBudget(max = 1)
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsStore.stats();
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 현재 트랜잭션이 @Transactional(readOnly = true) 면 replica, 아니면 primary 커넥션을 준다.
+ * 트랜잭션 속성은 커넥션을 실제로 얻는 시점에 확인하므로 반드시 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * app.datasource.replica.jdbc-url 이 있을 때만 켜진다. 없으면 spring.datasource 하나만 쓰는 기존 구성 그대로다.
+ * primary 는 spring.datasource(.hikari), replica 는 app.datasource.replica 의 Hikari 설정으로 만든다.
+ * ddl-auto 와 spring.sql.init 은 primary 에만 실행되므로 replica 의 스키마와 데이터는 DB 복제로 채워져 있어야 한다.
+ * 복제가 없는 로컬에서는 replica 도 primary 와 같은 DB 를 가리키게 해서 읽기 전용 풀만 따로 둔다.
+ * 읽기 전용 트랜잭션 세션은 Spring 이 FlushMode.MANUAL + defaultReadOnly 로 열기 때문에 스냅샷을 만들지 않고 flush 도 하지 않는다.
+ * p6spy 는 라우팅 DataSource 한 곳에서만 SQL 을 보도록 두 풀을 decorator.datasource.exclude-beans 로 뺀다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "jdbc-url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        ReadOnlyRoutingDataSource routingDataSource = new ReadOnlyRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+            ReadOnlyRoutingDataSource.PRIMARY, primaryDataSource,
+            ReadOnlyRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        // 트랜잭션 시작 시점이 아니라 첫 SQL 을 실행할 때 커넥션을 얻어야 readOnly 여부가 반영된다.
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
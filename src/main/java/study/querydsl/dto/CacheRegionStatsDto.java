@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class CacheRegionStatsDto {
+
+    private String region;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long size;
+
+    public CacheRegionStatsDto(String region, long hitCount, long missCount, long putCount, long size) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.size = size;
+    }
+
+    public double getHitRatio() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 전체 건수가 정확하지 않을 수 있는 페이지. exactTotal 이 false 면 totalElements 는 상한값이거나 추정값이다.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean exactTotal;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean exactTotal) {
+        super(content, pageable, total);
+        this.exactTotal = exactTotal;
+    }
+
+    public boolean isExactTotal() {
+        return exactTotal;
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberCursorResult {
+
+    private List<MemberTeamDto> content;
+    private String nextCursor; // 다음 페이지 조회시 그대로 넘겨주는 불투명 토큰 (마지막 페이지면 null)
+    private boolean hasNext;
+
+    public MemberCursorResult(List<MemberTeamDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SearchShapePlanDto {
+
+    private int shape;
+    private String conditions; // 값이 들어있는 검색 조건 목록
+    private String sql;
+    private List<String> plan;  // EXPLAIN 결과 (로우 하나당 한 줄)
+    private boolean fullScan;
+
+    public SearchShapePlanDto(int shape, String conditions, String sql, List<String> plan, boolean fullScan) {
+        this.shape = shape;
+        this.conditions = conditions;
+        this.sql = sql;
+        this.plan = plan;
+        this.fullScan = fullScan;
+    }
+}
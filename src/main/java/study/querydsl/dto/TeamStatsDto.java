@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// 팀 이름별 회원 나이 통계. QuerydslBasicTest.aggregation / group 의 count, sum, avg, max, min 과 같은 값이다.
+@Data
+public class TeamStatsDto {
+
+    private String teamName;
+    private long count;
+    private long sum;
+    private double avg;
+    private int max;
+    private int min;
+
+    public TeamStatsDto(String teamName, long count, long sum, int max, int min) {
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = count == 0 ? 0 : (double) sum / count;
+        this.max = max;
+        this.min = min;
+    }
+}
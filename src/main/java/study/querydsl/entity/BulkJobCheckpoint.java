@@ -0,0 +1,35 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 청크 단위 벌크 작업에서 완료된 id 구간 기록.
+ * 구간 update 와 같은 트랜잭션에서 저장되므로, 기록이 있는 구간은 정확히 한 번 반영된 것이다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"jobName", "chunkFrom", "chunkTo", "affectedRows"})
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_bulk_job_checkpoint_chunk", columnNames = {"job_name", "chunk_from"}))
+public class BulkJobCheckpoint {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    private String jobName;
+    private long chunkFrom;
+    private long chunkTo;
+    private long affectedRows;
+    private LocalDateTime completedAt;
+
+    public BulkJobCheckpoint(String jobName, long chunkFrom, long chunkTo, long affectedRows) {
+        this.jobName = jobName;
+        this.chunkFrom = chunkFrom;
+        this.chunkTo = chunkTo;
+        this.affectedRows = affectedRows;
+        this.completedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,381 @@
+package study.querydsl.memory;
+
+import com.querydsl.collections.CollQueryFactory;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 자주 조회되는 데이터(전체 팀 + 회원 작업 집합)를 메모리에 올려두고 DB 대신 검색한다. (app.in-memory.enabled)
+ * app.in-memory.teams 가 비어 있으면 전체 회원을, 있으면 그 팀의 회원만 올린다. 회원 수가 member-limit 을 넘으면 올리지 않는다.
+ * 메모리에 있는 회원만으로 답할 수 있는 조건(전체를 올렸거나, 올린 팀의 이름으로 검색)만 DB 대신 여기서 답한다.
+ * 적재한 회원은 불변 MemberIndex(배열 기반 인덱스)에 두고, 이후 커밋된 변경분만 delta(엔티티 복사본)에 쌓아 CollQuery 로 검색한다.
+ * delta 가 delta-limit 을 넘거나 팀 이름이 바뀌면 인덱스를 다시 빌드해 delta 를 비운다.
+ * 검색은 (적재 여부, 인덱스, delta, 삭제 목록)을 묶은 불변 Snapshot 하나만 읽는다. 변경은 lock 안에서 작업 사본을 고친 뒤 새 Snapshot 으로 한 번에 교체한다.
+ * reload() 중에는 적재되지 않은 Snapshot 이 보이므로 검색은 비거나 일부만 찬 인덱스 대신 DB 로 간다.
+ * 커밋된 변경은 InMemoryMemberStoreUpdater 가 ChangeFeed 를 구독해서 반영하고, 벌크 변경이 알려지면 reload() 한다.
+ */
+@Slf4j
+@Component
+public class InMemoryMemberStore {
+
+    private static final int LOAD_FETCH_SIZE = 500;
+
+    private final boolean enabled;
+    private final Set<String> hotTeams;
+    private final int memberLimit;
+    private final int deltaLimit;
+    private final TransactionTemplate reloadTransaction;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // 작업 사본. 모두 this 의 lock 안에서만 읽고 쓴다.
+    private final Map<Long, Team> teams = new HashMap<>();
+    private MemberIndex index = MemberIndex.builder(0).build();
+    private final Map<Long, Member> delta = new HashMap<>(); // 인덱스 빌드 이후 추가 / 변경된 회원
+    private final Set<Long> removed = new HashSet<>(); // 인덱스 빌드 이후 삭제된 회원
+    private boolean loaded;
+    private int updateDepth;
+
+    // 검색이 읽는 값
+    private volatile Snapshot snapshot = new Snapshot(false, index, Map.of(), Set.of());
+    private volatile boolean stale; // 마지막 reload() 가 실패했으면 다음 변경 묶음에서 다시 적재한다.
+
+    public InMemoryMemberStore(PlatformTransactionManager transactionManager,
+                               @Value("${app.in-memory.enabled:false}") boolean enabled,
+                               @Value("${app.in-memory.teams:}") List<String> hotTeams,
+                               @Value("${app.in-memory.member-limit:100000}") int memberLimit,
+                               @Value("${app.in-memory.delta-limit:10000}") int deltaLimit) {
+        this.enabled = enabled;
+        this.hotTeams = hotTeams.stream().filter(StringUtils::hasText).collect(Collectors.toSet());
+        this.memberLimit = memberLimit;
+        this.deltaLimit = deltaLimit;
+        // 커밋 후 리스너 안에서도 불릴 수 있으므로 항상 새 트랜잭션으로 읽는다.
+        // 방금 알려진 변경(BULK 등)이 빠지지 않도록 readOnly 를 걸지 않아 replica 가 아니라 primary 에서 읽는다.
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    // 새 팀 목록과 인덱스는 지역 변수에 만들고, 다 읽은 뒤에 작업 사본을 바꾸고 한 번에 publish 한다.
+    public synchronized void reload() {
+        // 지금 내용은 이미 최신이 아니므로 적재가 끝날 때까지 검색은 DB 로 보낸다.
+        loaded = false;
+        publish();
+
+        long startedAt = System.nanoTime();
+        Map<Long, Team> loadedTeams = new HashMap<>();
+        MemberIndex loadedIndex;
+        try {
+            loadedIndex = reloadTransaction.execute(status -> load(loadedTeams));
+            stale = false;
+        } catch (RuntimeException e) {
+            // 실패하면 loaded=false 로 남아서 검색은 DB 로 간다.
+            stale = true;
+            throw e;
+        }
+
+        teams.clear();
+        teams.putAll(loadedTeams);
+        delta.clear();
+        removed.clear();
+        index = loadedIndex != null ? loadedIndex : MemberIndex.builder(0).build();
+        loaded = loadedIndex != null;
+        publish();
+
+        log.info("in-memory member store loaded={}, teams={}, members={}, indexBytes={}, elapsedMillis={}",
+            loaded, teams.size(), index.size(), index.footprintBytes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    // 작업 집합이 member-limit 을 넘으면 null
+    private MemberIndex load(Map<Long, Team> loadedTeams) {
+        for (Team entity : em.createQuery("select t from Team t", Team.class).getResultList()) {
+            loadedTeams.put(entity.getId(), copyOf(entity));
+        }
+
+        // 엔티티 대신 컬럼만 스트리밍으로 읽어 인덱스에 바로 넣는다.
+        TypedQuery<Object[]> query = hotTeams.isEmpty()
+            ? em.createQuery("select m.id, m.username, m.age, t.id from Member m left join m.team t", Object[].class)
+            : em.createQuery("select m.id, m.username, m.age, t.id from Member m join m.team t where t.name in :teamNames", Object[].class)
+                .setParameter("teamNames", hotTeams);
+        MemberIndex.Builder builder = newBuilder(loadedTeams, 0);
+        int[] count = {0};
+        query.setHint(QueryHints.HINT_FETCH_SIZE, LOAD_FETCH_SIZE);
+        try (Stream<Object[]> rows = query.setMaxResults(memberLimit + 1).getResultStream()) {
+            rows.forEach(row -> {
+                count[0]++;
+                if (count[0] <= memberLimit) {
+                    builder.addMember((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3]);
+                }
+            });
+        }
+        if (count[0] > memberLimit) {
+            log.warn("in-memory member store disabled. working set exceeds member-limit={}", memberLimit);
+            return null;
+        }
+        return builder.build();
+    }
+
+    /**
+     * 메모리에 있는 회원만으로 정확한 결과를 낼 수 있으면 인덱스 결과(delta 로 대체되거나 삭제된 회원 제외)와 delta 검색 결과를 합쳐 id 순으로 돌려준다.
+     * 답할 수 없으면(적재 전 / reload 중 / 작업 집합 밖의 조건) 비어 있는 Optional 을 돌려주므로 호출하는 쪽은 DB 로 검색한다.
+     * 적재 여부와 데이터를 같은 Snapshot 에서 읽으므로 판단한 시점과 검색한 시점의 상태가 어긋나지 않는다.
+     */
+    public Optional<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        Snapshot current = snapshot;
+        if (!isEligible(current, condition)) {
+            return Optional.empty();
+        }
+
+        List<MemberTeamDto> dtos = current.index.search(condition,
+            id -> current.delta.containsKey(id) || current.removed.contains(id));
+
+        if (!current.delta.isEmpty()) {
+            List<Member> result = CollQueryFactory.from(member, current.delta.values())
+                .where(predicates(condition))
+                .fetch();
+            for (Member m : result) {
+                Team t = m.getTeam();
+                dtos.add(new MemberTeamDto(m.getId(), m.getUsername(), m.getAge(),
+                    t == null ? null : t.getId(), t == null ? null : t.getName()));
+            }
+        }
+
+        dtos.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return Optional.of(dtos);
+    }
+
+    /**
+     * 메모리 검색의 username / teamName 비교는 대소문자와 공백까지 그대로 비교한다(String.equals / 바이트 비교).
+     * DB 는 collation 을 따르므로 MySQL 기본 collation(대소문자 무시)에서는 "MemberA" 로 "membera" 를 찾지만 메모리에서는 못 찾는다.
+     * 그래서 collation 이 대소문자를 구분하지 않는 DB 에서 켜면 적재 여부에 따라 같은 검색의 결과가 달라질 수 있다.
+     * 작업 집합(hotTeams)도 같은 방식으로 비교하므로 철자가 정확히 같지 않은 팀 이름은 메모리 대신 DB 로 간다.
+     * 켜기 전에 username / team.name 컬럼을 대소문자를 구분하는 collation(utf8mb4_bin 등)으로 두거나, 입력을 저장 형태로 정규화해서 넘겨야 한다.
+     */
+    private boolean isEligible(Snapshot current, MemberSearchCondition condition) {
+        if (!enabled || !current.loaded) {
+            return false;
+        }
+        return hotTeams.isEmpty() || (hasText(condition.getTeamName()) && hotTeams.contains(condition.getTeamName()));
+    }
+
+    // DB 검색과 같은 QMember 경로로 조건을 만든다. 메모리에서는 join 대신 member.team 을 따라가므로 팀이 없는 회원을 먼저 거른다.
+    private static Predicate[] predicates(MemberSearchCondition condition) {
+        BooleanExpression teamNameEq = hasText(condition.getTeamName())
+            ? member.team.isNotNull().and(member.team.name.eq(condition.getTeamName()))
+            : null;
+        return new Predicate[]{
+            hasText(condition.getUsername()) ? member.username.eq(condition.getUsername()) : null,
+            teamNameEq,
+            condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+            condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null
+        };
+    }
+
+    // 여러 변경을 반영한 뒤 Snapshot 을 한 번만 만든다. (ChangeBatch 하나를 통째로 반영할 때)
+    synchronized void update(Runnable changes) {
+        updateDepth++;
+        try {
+            changes.run();
+        } finally {
+            updateDepth--;
+        }
+        publish();
+    }
+
+    synchronized void putMember(Long id, String username, int age, Long teamId) {
+        if (!loaded) {
+            return;
+        }
+
+        Team team = teamId == null ? null : teams.get(teamId);
+        if (!hotTeams.isEmpty() && (team == null || !hotTeams.contains(team.getName()))) {
+            removeMember(id); // 작업 집합 밖으로 옮겨간 회원
+            return;
+        }
+        if (!delta.containsKey(id) && index.size() + delta.size() - removed.size() >= memberLimit) {
+            log.warn("in-memory member store disabled. working set exceeds member-limit={}", memberLimit);
+            loaded = false;
+            publishUnlessUpdating();
+            return;
+        }
+        delta.put(id, copyOf(id, username, age, team));
+        compactIfNeeded();
+        publishUnlessUpdating();
+    }
+
+    // 인덱스에 없는 id 도 removed 에 넣어둔다. 어차피 다음 빌드 때 비워진다.
+    synchronized void removeMember(Long id) {
+        if (!loaded) {
+            return;
+        }
+        delta.remove(id);
+        removed.add(id);
+        compactIfNeeded();
+        publishUnlessUpdating();
+    }
+
+    // 인덱스는 팀 이름을 빌드 시점 값으로 들고 있으므로 팀 이름이 바뀌면 다시 빌드한다.
+    synchronized void putTeam(Long id, String name) {
+        if (!loaded) {
+            return;
+        }
+
+        Team previous = teams.get(id);
+        Team team = new Team(name);
+        team.setId(id);
+        teams.put(id, team);
+        if (previous != null && Objects.equals(previous.getName(), name)) {
+            return;
+        }
+
+        if (!hotTeams.isEmpty()) {
+            // 작업 집합이 팀 이름 기준이므로 전체를 다시 맞춘다.
+            reload();
+            return;
+        }
+        delta.replaceAll((memberId, m) -> m.getTeam() != null && id.equals(m.getTeam().getId())
+            ? copyOf(memberId, m.getUsername(), m.getAge(), team)
+            : m);
+        if (previous != null) {
+            rebuild();
+        }
+        publishUnlessUpdating();
+    }
+
+    synchronized void removeTeam(Long id) {
+        if (loaded) {
+            teams.remove(id);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (delta.size() + removed.size() > deltaLimit) {
+            rebuild();
+        }
+    }
+
+    // 현재 인덱스 + delta 로 새 인덱스를 만든다. 검색은 publish 전까지 이전 Snapshot(이전 인덱스 + 그 시점 delta)을 본다.
+    private void rebuild() {
+        MemberIndex.Builder builder = newBuilder(teams, index.size() + delta.size());
+        index.forEach((id, username, age, teamId) -> {
+            if (!delta.containsKey(id) && !removed.contains(id)) {
+                builder.addMember(id, username, age, teamId);
+            }
+        });
+        for (Member m : delta.values()) {
+            builder.addMember(m.getId(), m.getUsername(), m.getAge(), m.getTeam() == null ? null : m.getTeam().getId());
+        }
+
+        index = builder.build();
+        delta.clear();
+        removed.clear();
+    }
+
+    // delta 복사 비용은 delta-limit 이하다.
+    private void publish() {
+        snapshot = new Snapshot(loaded, index, Map.copyOf(delta), Set.copyOf(removed));
+    }
+
+    private void publishUnlessUpdating() {
+        if (updateDepth == 0) {
+            publish();
+        }
+    }
+
+    private static MemberIndex.Builder newBuilder(Map<Long, Team> teams, int expectedSize) {
+        MemberIndex.Builder builder = MemberIndex.builder(expectedSize);
+        teams.values().forEach(team -> builder.addTeam(team.getId(), team.getName()));
+        return builder;
+    }
+
+    public boolean isLoaded() {
+        return snapshot.loaded;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    // 근사값. delta 에 있는 회원이 인덱스에도 있으면 두 번 센다.
+    public int getMemberCount() {
+        Snapshot current = snapshot;
+        return current.index.size() + current.delta.size() - current.removed.size();
+    }
+
+    public long getIndexFootprintBytes() {
+        return snapshot.index.footprintBytes();
+    }
+
+    public Set<String> getHotTeams() {
+        return Collections.unmodifiableSet(new HashSet<>(hotTeams));
+    }
+
+    private static Team copyOf(Team entity) {
+        Team team = new Team(entity.getName());
+        team.setId(entity.getId());
+        return team;
+    }
+
+    private static final class Snapshot {
+
+        private final boolean loaded;
+        private final MemberIndex index;
+        private final Map<Long, Member> delta;
+        private final Set<Long> removed;
+
+        private Snapshot(boolean loaded, MemberIndex index, Map<Long, Member> delta, Set<Long> removed) {
+            this.loaded = loaded;
+            this.index = index;
+            this.delta = delta;
+            this.removed = removed;
+        }
+    }
+
+    // 생성자로 팀을 넣으면 Team.members 에 쌓이므로 setTeam 으로 참조만 건다.
+    private static Member copyOf(Long id, String username, int age, Team team) {
+        Member copy = new Member(username, age);
+        copy.setId(id);
+        copy.setTeam(team);
+        return copy;
+    }
+}
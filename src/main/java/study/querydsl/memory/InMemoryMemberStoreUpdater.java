@@ -0,0 +1,58 @@
+package study.querydsl.memory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.ChangeBatch;
+import study.querydsl.change.ChangeEntity;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeSubscriber;
+import study.querydsl.change.ChangeType;
+import study.querydsl.change.MemberSnapshot;
+
+/**
+ * 커밋된 회원 / 팀 변경을 InMemoryMemberStore 에 건별로 반영한다. (app.in-memory.enabled=true 일 때만 구독)
+ * ChangeFeed 는 커밋된 변경만 전달하므로 롤백된 변경이 메모리에 남지 않는다. MemberBulkRepository 의 벌크 변경도 회원별 이벤트로 오므로 건별로 반영하고,
+ * 어떤 회원이 바뀌었는지 모르는 BULK 가 섞였거나 직전 reload() 가 실패했으면 전체를 다시 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class InMemoryMemberStoreUpdater implements ChangeSubscriber {
+
+    private final InMemoryMemberStore store;
+
+    @Value("${app.in-memory.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public boolean isActive() {
+        return enabled;
+    }
+
+    @Override
+    public void onChanges(ChangeBatch batch) {
+        if (batch.hasBulk() || store.isStale()) {
+            store.reload();
+            return;
+        }
+        // 묶음 하나를 반영한 결과만 검색에 보이도록 한 번에 교체한다.
+        store.update(() -> batch.getEvents().forEach(this::apply));
+    }
+
+    private void apply(ChangeEvent event) {
+        if (event.getEntity() == ChangeEntity.MEMBER) {
+            if (event.getType() == ChangeType.DELETE) {
+                store.removeMember(event.getId());
+            } else {
+                MemberSnapshot after = event.getMemberAfter();
+                store.putMember(after.getId(), after.getUsername(), after.getAge(), after.getTeamId());
+            }
+        } else if (event.getEntity() == ChangeEntity.TEAM) {
+            if (event.getType() == ChangeType.DELETE) {
+                store.removeTeam(event.getId());
+            } else {
+                store.putTeam(event.getId(), event.getTeamNameAfter());
+            }
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package study.querydsl.memory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원 검색용 불변 인덱스. 회원 한 명을 객체 대신 배열의 한 칸(row)으로 저장한다.
+ * row 는 (age, 추가 순서)로 정렬되어 있어서 ages 배열 자체가 나이 범위 검색용 정렬 인덱스가 된다.
+ * username 은 UTF-8 바이트를 하나의 byte[] 에 이어 붙여 저장하고, 해시 버킷(체이닝)으로 찾는다.
+ * 팀은 팀마다 row 번호 배열(나이 순)을 두므로 팀 이름 + 나이 범위도 이진 탐색으로 시작한다.
+ * 팀 이름은 유일하지 않으므로 이름 하나가 여러 팀(slot)을 가리킬 수 있고, 그때는 각 팀의 구간을 row 순서로 합친다.
+ * 어느 경로든 O(log n + k) 이고, 회원당 대략 50 바이트 남짓을 쓴다. (footprintBytes)
+ */
+public final class MemberIndex {
+
+    private static final int NO_TEAM = -1;
+
+    // row 별 컬럼
+    private final long[] ids;
+    private final int[] ages;
+    private final int[] teamSlots;
+    private final int[] nameOffsets; // username 바이트 구간 [nameOffsets[row], nameOffsets[row + 1])
+    private final byte[] names;
+    private final BitSet nullNames; // username 이 null 인 row (빈 문자열과 구분)
+
+    // username 해시 인덱스. 버킷의 첫 row 와 같은 버킷의 다음 row (-1 이면 끝)
+    private final int[] nameBuckets;
+    private final int[] nextInBucket;
+
+    // 팀 (slot 번호로 참조)
+    private final long[] teamIds;
+    private final String[] teamNames;
+    private final Map<String, int[]> slotsByTeamName;
+    private final int[][] rowsByTeam;
+
+    private MemberIndex(long[] ids, int[] ages, int[] teamSlots, int[] nameOffsets, byte[] names, BitSet nullNames,
+                        long[] teamIds, String[] teamNames) {
+        this.ids = ids;
+        this.ages = ages;
+        this.teamSlots = teamSlots;
+        this.nameOffsets = nameOffsets;
+        this.names = names;
+        this.nullNames = nullNames;
+        this.teamIds = teamIds;
+        this.teamNames = teamNames;
+
+        int size = ids.length;
+        this.nameBuckets = new int[Math.max(1, Integer.highestOneBit(Math.max(1, size - 1)) << 1)];
+        Arrays.fill(nameBuckets, -1);
+        this.nextInBucket = new int[size];
+        for (int row = size - 1; row >= 0; row--) {
+            int bucket = hash(names, nameOffsets[row], nameOffsets[row + 1]) & (nameBuckets.length - 1);
+            nextInBucket[row] = nameBuckets[bucket];
+            nameBuckets[bucket] = row;
+        }
+
+        this.slotsByTeamName = new HashMap<>();
+        for (int slot = 0; slot < teamNames.length; slot++) {
+            if (teamNames[slot] != null) {
+                slotsByTeamName.merge(teamNames[slot], new int[]{slot}, MemberIndex::concat);
+            }
+        }
+
+        int[] counts = new int[teamIds.length];
+        for (int slot : teamSlots) {
+            if (slot != NO_TEAM) {
+                counts[slot]++;
+            }
+        }
+        this.rowsByTeam = new int[teamIds.length][];
+        for (int slot = 0; slot < teamIds.length; slot++) {
+            rowsByTeam[slot] = new int[counts[slot]];
+        }
+        Arrays.fill(counts, 0);
+        for (int row = 0; row < size; row++) {
+            int slot = teamSlots[row];
+            if (slot != NO_TEAM) {
+                rowsByTeam[slot][counts[slot]++] = row;
+            }
+        }
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 조건에 맞는 회원을 찾는다. excluded 가 true 인 id 는 건너뛴다. (변경분으로 대체된 회원 등)
+     * username 이 있으면 해시 인덱스, 팀 이름이 있으면 팀별 row 배열, 그 외에는 전체 나이 범위에서 시작한다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition, LongPredicate excluded) {
+        int minAge = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+        int maxAge = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+        if (minAge > maxAge) {
+            return new ArrayList<>();
+        }
+
+        int[] slots = null;
+        if (hasText(condition.getTeamName())) {
+            slots = slotsByTeamName.get(condition.getTeamName());
+            if (slots == null) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        if (hasText(condition.getUsername())) {
+            byte[] username = condition.getUsername().getBytes(StandardCharsets.UTF_8);
+            int bucket = hash(username, 0, username.length) & (nameBuckets.length - 1);
+            for (int row = nameBuckets[bucket]; row != -1; row = nextInBucket[row]) {
+                if (nameEquals(row, username) && ages[row] >= minAge && ages[row] <= maxAge
+                    && (slots == null || contains(slots, teamSlots[row]))) {
+                    add(result, row, excluded);
+                }
+            }
+            return result;
+        }
+
+        if (slots != null) {
+            int[] matched = new int[0];
+            for (int slot : slots) {
+                int[] rows = rowsByTeam[slot];
+                int from = lowerBound(rows, minAge);
+                int to = from;
+                while (to < rows.length && ages[rows[to]] <= maxAge) {
+                    to++;
+                }
+                matched = concat(matched, Arrays.copyOfRange(rows, from, to));
+            }
+            // 팀이 여러 개면 row 번호 순(= 나이, 추가 순서)으로 합친다.
+            if (slots.length > 1) {
+                Arrays.sort(matched);
+            }
+            for (int row : matched) {
+                add(result, row, excluded);
+            }
+            return result;
+        }
+
+        for (int row = lowerBound(null, minAge); row < ages.length && ages[row] <= maxAge; row++) {
+            add(result, row, excluded);
+        }
+        return result;
+    }
+
+    // 다시 빌드할 때 기존 회원을 옮겨 담기 위한 순회
+    public void forEach(MemberRowConsumer consumer) {
+        for (int row = 0; row < ids.length; row++) {
+            int slot = teamSlots[row];
+            consumer.accept(ids[row], username(row), ages[row], slot == NO_TEAM ? null : teamIds[slot]);
+        }
+    }
+
+    // 배열이 차지하는 대략적인 힙 크기 (배열 헤더 16 바이트 포함, 팀 이름 문자열 / HashMap 은 팀 수 만큼이라 제외)
+    public long footprintBytes() {
+        long bytes = arrayBytes(ids.length, 8) + arrayBytes(ages.length, 4) + arrayBytes(teamSlots.length, 4)
+            + arrayBytes(nameOffsets.length, 4) + arrayBytes(names.length, 1)
+            + arrayBytes(nameBuckets.length, 4) + arrayBytes(nextInBucket.length, 4)
+            + arrayBytes(teamIds.length, 8) + arrayBytes(nullNames.size() / 64, 8);
+        for (int[] rows : rowsByTeam) {
+            bytes += arrayBytes(rows.length, 4);
+        }
+        return bytes;
+    }
+
+    private void add(List<MemberTeamDto> result, int row, LongPredicate excluded) {
+        if (excluded.test(ids[row])) {
+            return;
+        }
+        int slot = teamSlots[row];
+        result.add(new MemberTeamDto(ids[row], username(row), ages[row],
+            slot == NO_TEAM ? null : teamIds[slot], slot == NO_TEAM ? null : teamNames[slot]));
+    }
+
+    // age 가 minAge 이상인 첫 위치. rows 가 null 이면 전체 row, 아니면 rows 안에서 찾는다.
+    private int lowerBound(int[] rows, int minAge) {
+        int low = 0;
+        int high = rows == null ? ages.length : rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int age = ages[rows == null ? mid : rows[mid]];
+            if (age < minAge) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String username(int row) {
+        if (nullNames.get(row)) {
+            return null;
+        }
+        return new String(names, nameOffsets[row], nameOffsets[row + 1] - nameOffsets[row], StandardCharsets.UTF_8);
+    }
+
+    // 바이트 단위로 정확히 같은지만 본다. DB collation 의 대소문자 무시 비교와는 다르다. (InMemoryMemberStore.isEligible 참고)
+    private boolean nameEquals(int row, byte[] username) {
+        int from = nameOffsets[row];
+        int length = nameOffsets[row + 1] - from;
+        if (length != username.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (names[from + i] != username[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int candidate : slots) {
+            if (candidate == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        return merged;
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long arrayBytes(long length, int elementBytes) {
+        return 16 + length * elementBytes;
+    }
+
+    @FunctionalInterface
+    public interface MemberRowConsumer {
+        void accept(long id, String username, int age, Long teamId);
+    }
+
+    public static final class Builder {
+
+        private long[] ids;
+        private int[] ages;
+        private int[] teamSlots;
+        private int[] nameOffsets;
+        private byte[] names;
+        private final BitSet nullNames = new BitSet();
+        private int size;
+        private int nameLength;
+
+        private final List<Long> teamIds = new ArrayList<>();
+        private final List<String> teamNames = new ArrayList<>();
+        private final Map<Long, Integer> slotByTeamId = new HashMap<>();
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new long[capacity];
+            ages = new int[capacity];
+            teamSlots = new int[capacity];
+            nameOffsets = new int[capacity];
+            names = new byte[capacity * 8];
+        }
+
+        public Builder addTeam(long id, String name) {
+            Integer slot = slotByTeamId.get(id);
+            if (slot == null) {
+                slotByTeamId.put(id, teamIds.size());
+                teamIds.add(id);
+                teamNames.add(name);
+            } else {
+                teamNames.set(slot, name);
+            }
+            return this;
+        }
+
+        // 팀은 먼저 addTeam 으로 등록되어 있어야 한다. 등록되지 않은 팀 id 는 팀 없음으로 본다.
+        public Builder addMember(long id, String username, int age, Long teamId) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamSlots = Arrays.copyOf(teamSlots, capacity);
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            }
+
+            if (username == null) {
+                nullNames.set(size);
+            }
+            byte[] name = username == null ? new byte[0] : username.getBytes(StandardCharsets.UTF_8);
+            if (nameLength + name.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length + (names.length >> 1), nameLength + name.length));
+            }
+            System.arraycopy(name, 0, names, nameLength, name.length);
+
+            Integer slot = teamId == null ? null : slotByTeamId.get(teamId);
+            ids[size] = id;
+            ages[size] = age;
+            teamSlots[size] = slot == null ? NO_TEAM : slot;
+            nameOffsets[size] = nameLength;
+            nameLength += name.length;
+            size++;
+            return this;
+        }
+
+        // (age, 추가 순서)로 row 를 다시 배치한다. 정렬 키를 long 하나(상위 32 비트 age, 하위 32 비트 원래 위치)로 만들어 primitive 정렬만 쓴다.
+        public MemberIndex build() {
+            long[] keys = new long[size];
+            for (int row = 0; row < size; row++) {
+                keys[row] = ((long) ages[row] << 32) | row;
+            }
+            Arrays.sort(keys);
+
+            long[] sortedIds = new long[size];
+            int[] sortedAges = new int[size];
+            int[] sortedSlots = new int[size];
+            int[] sortedOffsets = new int[size + 1];
+            byte[] sortedNames = new byte[nameLength];
+            BitSet sortedNullNames = new BitSet(size);
+            int offset = 0;
+            for (int i = 0; i < size; i++) {
+                int row = (int) keys[i];
+                sortedIds[i] = ids[row];
+                sortedAges[i] = ages[row];
+                sortedSlots[i] = teamSlots[row];
+                if (nullNames.get(row)) {
+                    sortedNullNames.set(i);
+                }
+
+                int from = nameOffsets[row];
+                int to = row + 1 < size ? nameOffsets[row + 1] : nameLength;
+                System.arraycopy(names, from, sortedNames, offset, to - from);
+                sortedOffsets[i] = offset;
+                offset += to - from;
+            }
+            sortedOffsets[size] = offset;
+
+            long[] teamIdArray = new long[teamIds.size()];
+            for (int slot = 0; slot < teamIdArray.length; slot++) {
+                teamIdArray[slot] = teamIds.get(slot);
+            }
+            return new MemberIndex(sortedIds, sortedAges, sortedSlots, sortedOffsets, sortedNames, sortedNullNames,
+                teamIdArray, teamNames.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컨트롤러 메서드가 요청 한 번에 실행할 수 있는 SQL 수의 상한.
+ * 넘었을 때의 동작은 app.query-budget.mode (off / log / reject) 로 정한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int max();
+}
@@ -0,0 +1,8 @@
+package study.querydsl.metrics;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String endpoint, int budget) {
+        super("SQL 실행 수가 허용치를 넘었습니다. endpoint=" + endpoint + ", budget=" + budget);
+    }
+}
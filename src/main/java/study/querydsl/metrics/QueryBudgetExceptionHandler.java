@@ -0,0 +1,23 @@
+package study.querydsl.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * app.query-budget.mode=reject 에서 QueryBudgetGuard 가 SQL 실행을 막은 요청을 503 으로 응답한다.
+ * 예외는 p6spy 리스너에서 던져져 Hibernate / Spring 예외로 감싸질 수 있는데, @ExceptionHandler 는 원인(cause)까지 찾아서 매칭한다.
+ */
+@Slf4j
+@RestControllerAdvice
+public class QueryBudgetExceptionHandler {
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(QueryBudgetExceededException.class)
+    public String queryBudgetExceeded(QueryBudgetExceededException e) {
+        log.warn("request rejected. {}", e.getMessage());
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * @QueryBudget 이 붙은 요청에서 허용치를 넘는 SQL 이 실행되려 할 때 로그를 남기거나(log) 실행 전에 막는다(reject).
+ * N + 1 처럼 요청당 SQL 수가 데이터 크기에 비례해서 늘어나는 회귀를 운영에서 잡기 위한 용도.
+ */
+@Slf4j
+@Component
+public class QueryBudgetGuard extends SimpleJdbcEventListener {
+
+    public enum Mode {
+        OFF, LOG, REJECT
+    }
+
+    private final Mode mode;
+
+    public QueryBudgetGuard(@Value("${app.query-budget.mode:log}") String mode) {
+        this.mode = Mode.valueOf(mode.toUpperCase());
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        SqlRequestStats stats = SqlContext.currentRequest();
+        if (mode == Mode.OFF || stats == null || !stats.hasBudget()) {
+            return;
+        }
+
+        // 실행 수는 실행 후에 올라가므로, 지금 실행하려는 SQL 까지 포함해서 비교한다.
+        if (stats.getStatementCount() < stats.getBudget()) {
+            return;
+        }
+
+        if (mode == Mode.REJECT) {
+            throw new QueryBudgetExceededException(stats.getEndpoint(), stats.getBudget());
+        }
+
+        if (stats.markBudgetExceeded()) {
+            log.warn("query budget exceeded. endpoint={}, budget={}, sql={}",
+                stats.getEndpoint(), stats.getBudget(), statementInformation.getSql());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+
+// 리포지토리 메서드 한 번 호출 동안 실행된 SQL 수와 읽어온 로우 수
+@Getter
+class RepositoryCall {
+
+    private final String method;
+    private int statementCount;
+    private long rowCount;
+
+    RepositoryCall(String method) {
+        this.method = method;
+    }
+
+    void addStatement() {
+        statementCount++;
+    }
+
+    void addRow() {
+        rowCount++;
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 메서드 실행 구간을 SqlContext 에 기록해서 p6spy 리스너가 SQL 을 호출한 메서드로 귀속시킬 수 있게 한다.
+ * 메서드가 끝나면 호출 한 번당 실행한 SQL 수와 읽은 로우 수를 기록한다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMethodAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(* study.querydsl.repository.MemberJpaRepository.*(..))"
+        + " || execution(* study.querydsl.repository.MemberRepositoryImpl.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+
+        RepositoryCall call = SqlContext.enter(method);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SqlContext.exit();
+            DistributionSummary.builder("repository.sql.statements")
+                .description("SQL statements per repository call")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(call.getStatementCount());
+            DistributionSummary.builder("repository.sql.rows")
+                .description("Rows read per repository call")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(call.getRowCount());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 현재 스레드에서 실행 중인 리포지토리 메서드와 HTTP 요청 단위 SQL 통계를 들고 있는 ThreadLocal 모음.
+ * p6spy 리스너는 SQL 이 실행된 스레드에서 호출되므로 여기서 어느 메서드 / 요청의 SQL 인지 찾는다.
+ */
+public final class SqlContext {
+
+    public static final String UNKNOWN_METHOD = "none";
+
+    private static final ThreadLocal<Deque<RepositoryCall>> CALLS = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final ThreadLocal<SqlRequestStats> REQUEST = new ThreadLocal<>();
+
+    private SqlContext() {
+    }
+
+    static RepositoryCall enter(String method) {
+        RepositoryCall call = new RepositoryCall(method);
+        CALLS.get().push(call);
+        return call;
+    }
+
+    static void exit() {
+        Deque<RepositoryCall> calls = CALLS.get();
+        calls.pop();
+        if (calls.isEmpty()) {
+            CALLS.remove();
+        }
+    }
+
+    // 리포지토리 메서드가 중첩 호출되면 가장 안쪽 메서드의 SQL 로 본다.
+    static RepositoryCall currentCall() {
+        return CALLS.get().peek();
+    }
+
+    static String currentMethod() {
+        RepositoryCall call = currentCall();
+        return call == null ? UNKNOWN_METHOD : call.getMethod();
+    }
+
+    public static SqlRequestStats currentRequest() {
+        return REQUEST.get();
+    }
+
+    // 다른 스레드에서 요청 일부를 실행할 때도 같은 통계 객체를 바인딩해서 쓸 수 있다.
+    public static void bindRequest(SqlRequestStats stats) {
+        REQUEST.set(stats);
+    }
+
+    public static void unbindRequest() {
+        REQUEST.remove();
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.metrics;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p6spy 가 감싼 DataSource 에서 실행되는 모든 SQL 의 실행 시간을 호출한 리포지토리 메서드별 히스토그램으로 기록한다.
+ * 임계치를 넘는 느린 SQL 은 바인딩된 파라미터까지 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class SqlMetricsListener extends SimpleJdbcEventListener {
+
+    private final MeterRegistry meterRegistry;
+    private final long slowQueryThresholdNanos;
+
+    public SqlMetricsListener(MeterRegistry meterRegistry,
+                              @Value("${app.sql-metrics.slow-query-threshold-ms:200}") long slowQueryThresholdMillis) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String method = SqlContext.currentMethod();
+
+        Timer.builder("sql.statement")
+            .description("SQL execution time by calling repository method")
+            .tag("method", method)
+            .tag("outcome", e == null ? "success" : "error")
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+
+        RepositoryCall call = SqlContext.currentCall();
+        if (call != null) {
+            call.addStatement();
+        }
+
+        SqlRequestStats request = SqlContext.currentRequest();
+        if (request != null) {
+            request.incrementStatementCount();
+        }
+
+        if (timeElapsedNanos >= slowQueryThresholdNanos) {
+            log.warn("slow query. method={}, elapsed={}ms, sql={}",
+                method, TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos), statementInformation.getSqlWithValues());
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        RepositoryCall call = SqlContext.currentCall();
+        if (hasNext && call != null) {
+            call.addRow();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * HTTP 요청마다 SqlRequestStats 를 바인딩하고 (@QueryBudget 이 있으면 허용치 포함), 요청이 끝나면 요청 하나에서 실행된 SQL 수를 엔드포인트별로 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlRequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STATS_ATTRIBUTE = SqlRequestStats.class.getName();
+    // 매칭된 핸들러 패턴이 없는 요청(404, 정적 리소스 등). 실제 URI 를 태그로 쓰면 경로마다 meter 가 새로 생긴다.
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 비동기 요청은 async dispatch 때 preHandle 이 한 번 더 호출되므로 기존 통계를 이어서 쓴다.
+        SqlRequestStats stats = (SqlRequestStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats == null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            stats = new SqlRequestStats(pattern == null ? UNKNOWN_URI : pattern.toString(), budgetOf(handler));
+            request.setAttribute(STATS_ATTRIBUTE, stats);
+        }
+        SqlContext.bindRequest(stats);
+        return true;
+    }
+
+    private int budgetOf(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return 0;
+        }
+
+        QueryBudget queryBudget = ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class);
+        return queryBudget == null ? 0 : queryBudget.max();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlContext.unbindRequest();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlContext.unbindRequest();
+
+        SqlRequestStats stats = (SqlRequestStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats == null) {
+            return;
+        }
+
+        DistributionSummary.builder("http.sql.statements")
+            .description("SQL statements per HTTP request")
+            .tag("uri", stats.getEndpoint())
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(stats.getStatementCount());
+    }
+}
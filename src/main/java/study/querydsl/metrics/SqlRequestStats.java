@@ -0,0 +1,47 @@
+package study.querydsl.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// HTTP 요청 하나에서 실행된 SQL 수 (요청 처리가 여러 스레드에 걸칠 수 있어 AtomicInteger 사용)
+public class SqlRequestStats {
+
+    private final String endpoint;
+    private final int budget; // 0 이면 제한 없음
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final AtomicBoolean budgetExceeded = new AtomicBoolean();
+
+    public SqlRequestStats(String endpoint) {
+        this(endpoint, 0);
+    }
+
+    public SqlRequestStats(String endpoint, int budget) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getStatementCount() {
+        return statementCount.get();
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public boolean hasBudget() {
+        return budget > 0;
+    }
+
+    // 처음 초과한 시점에만 true (로그를 한 번만 남기기 위해)
+    boolean markBudgetExceeded() {
+        return budgetExceeded.compareAndSet(false, true);
+    }
+
+    int incrementStatementCount() {
+        return statementCount.incrementAndGet();
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+public class BulkJobResult {
+
+    private final String jobName;
+    private final int totalChunks;
+    private final int skippedChunks;   // 이전 실행에서 이미 완료되어 건너뛴 구간 수
+    private final int processedChunks;
+    private final long affectedRows;
+    private final long elapsedMillis;
+
+    public BulkJobResult(String jobName, int totalChunks, int skippedChunks, int processedChunks, long affectedRows, long elapsedNanos) {
+        this.jobName = jobName;
+        this.totalChunks = totalChunks;
+        this.skippedChunks = skippedChunks;
+        this.processedChunks = processedChunks;
+        this.affectedRows = affectedRows;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? affectedRows * 1000 : affectedRows * 1000 / elapsedMillis;
+    }
+}
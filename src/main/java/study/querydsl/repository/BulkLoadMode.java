@@ -0,0 +1,6 @@
+package study.querydsl.repository;
+
+public enum BulkLoadMode {
+    JPA,  // em.persist + N 건마다 flush / clear (hibernate.jdbc.batch_size 로 배치 insert)
+    JDBC  // 시퀀스만 Hibernate 에서 받고 insert 는 PreparedStatement 배치로 직접 실행
+}
@@ -0,0 +1,25 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+public class BulkLoadResult {
+
+    private final BulkLoadMode mode;
+    private final long rows;
+    private final long elapsedMillis;
+
+    public BulkLoadResult(BulkLoadMode mode, long rows, long elapsedNanos) {
+        this.mode = mode;
+        this.rows = rows;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows * 1000 : rows * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.repository;
+
+/**
+ * 페이징 검색에서 전체 건수를 구하는 방법
+ */
+public enum CountStrategy {
+    EXACT,     // count(*) 로 정확하게 센다.
+    CAPPED,    // 상한(app.count.cap)까지만 센다. 넘으면 "10,000+" 처럼 상한과 함께 정확하지 않음을 알린다.
+    ESTIMATED  // 옵티마이저의 EXPLAIN 예상 로우 수를 쓴다. 예상치를 못 구하는 DB 에서는 CAPPED 로 대신한다.
+}
@@ -0,0 +1,35 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+
+/**
+ * findMembers() 에서 Member.team 을 어떻게 같이 가져올지 정한다.
+ * 어떤 방법이든 조회 건수와 상관없이 실행되는 쿼리 수가 일정하다. (N + 1 방지)
+ */
+@Getter
+public class FetchPlan {
+
+    public enum TeamStrategy {
+        FETCH_JOIN,   // join fetch 로 한 번에 조회
+        ENTITY_GRAPH, // @NamedEntityGraph("Member.team") 를 fetchgraph 힌트로 적용
+        BATCH         // 지연 로딩 + @BatchSize 로 팀을 in 절로 모아서 조회 (쿼리 1 + 팀 수 / 배치 크기)
+    }
+
+    private final TeamStrategy teamStrategy;
+
+    private FetchPlan(TeamStrategy teamStrategy) {
+        this.teamStrategy = teamStrategy;
+    }
+
+    public static FetchPlan withTeam() {
+        return new FetchPlan(TeamStrategy.FETCH_JOIN);
+    }
+
+    public static FetchPlan withTeamGraph() {
+        return new FetchPlan(TeamStrategy.ENTITY_GRAPH);
+    }
+
+    public static FetchPlan batched() {
+        return new FetchPlan(TeamStrategy.BATCH);
+    }
+}
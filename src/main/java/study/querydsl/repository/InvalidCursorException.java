@@ -0,0 +1,13 @@
+package study.querydsl.repository;
+
+// 클라이언트가 보낸 커서 토큰이나 커서 페이지 크기가 잘못된 경우. 컨트롤러에서 400 으로 응답한다.
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
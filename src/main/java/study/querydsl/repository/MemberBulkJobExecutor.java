@@ -0,0 +1,157 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.repository.MemberBulkRepository.IdRange;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * 대량 나이 변경을 id 구간(청크)으로 나눠 제한된 크기의 스레드 풀에서 병렬로 실행한다.
+ * 청크마다 별도 트랜잭션에서 update 와 체크포인트 저장을 함께 커밋하므로,
+ * 중간에 실패하거나 프로세스가 죽어도 같은 jobName 으로 다시 실행하면 남은 청크만 이어서 처리한다.
+ * 재시작 시 청크 경계가 같도록 구간은 chunkSize 의 배수로 정렬한다. (재실행할 때는 같은 조건 / chunkSize 를 써야 한다)
+ */
+@Slf4j
+@Component
+public class MemberBulkJobExecutor {
+
+    private final EntityManager em;
+    private final MemberBulkRepository memberBulkRepository;
+    private final TransactionTemplate chunkTransaction;
+    private final ExecutorService executor;
+
+    public MemberBulkJobExecutor(EntityManager em,
+                                 MemberBulkRepository memberBulkRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.bulk-job.parallelism:4}") int parallelism) {
+        this.em = em;
+        this.memberBulkRepository = memberBulkRepository;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public BulkJobResult addAge(String jobName, MemberSearchCondition condition, int amount, int chunkSize) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("병렬 벌크 작업은 트랜잭션 밖에서 호출해야 합니다.");
+        }
+
+        long start = System.nanoTime();
+        IdRange range = memberBulkRepository.idRange(condition);
+        if (range == null) {
+            return new BulkJobResult(jobName, 0, 0, 0, 0, System.nanoTime() - start);
+        }
+
+        Set<Long> completed = completedChunks(jobName);
+        List<long[]> chunks = new ArrayList<>();
+        int totalChunks = 0;
+        for (long from = Math.floorDiv(range.getMin(), chunkSize) * chunkSize; from <= range.getMax(); from += chunkSize) {
+            totalChunks++;
+            if (!completed.contains(from)) {
+                chunks.add(new long[]{from, from + chunkSize - 1});
+            }
+        }
+        int skippedChunks = totalChunks - chunks.size();
+        log.info("bulk job started. job={}, chunks={}, skipped={}", jobName, totalChunks, skippedChunks);
+
+        AtomicInteger processed = new AtomicInteger();
+        AtomicLong affectedRows = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>(chunks.size());
+        for (long[] chunk : chunks) {
+            futures.add(executor.submit(() -> {
+                long rows = runChunk(jobName, condition, amount, chunk[0], chunk[1]);
+                int done = processed.incrementAndGet();
+                long totalRows = affectedRows.addAndGet(rows);
+                logProgress(jobName, done, chunks.size(), totalRows, start);
+            }));
+        }
+
+        RuntimeException failure = awaitAll(futures);
+
+        // 변경은 청크 트랜잭션마다 회원별 이벤트(또는 max-batch-size 를 넘으면 BULK)로 이미 알렸으므로 작업 단위로 다시 알리지 않는다.
+        memberBulkRepository.reloadManagedInRange(range);
+        BulkJobResult result = new BulkJobResult(jobName, totalChunks, skippedChunks, processed.get(), affectedRows.get(), System.nanoTime() - start);
+        if (failure != null) {
+            log.warn("bulk job failed. 같은 jobName 으로 다시 실행하면 남은 청크부터 이어서 처리합니다. result={}", result);
+            throw failure;
+        }
+
+        log.info("bulk job finished. result={}, rows/sec={}", result, result.getRowsPerSecond());
+        return result;
+    }
+
+    // update 와 체크포인트를 한 트랜잭션으로 묶는다.
+    private long runChunk(String jobName, MemberSearchCondition condition, int amount, long from, long to) {
+        Long rows = chunkTransaction.execute(status -> {
+            long updated = memberBulkRepository.updateAgeInRange(condition, amount, from, to);
+            em.persist(new BulkJobCheckpoint(jobName, from, to, updated));
+            return updated;
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private Set<Long> completedChunks(String jobName) {
+        List<Long> chunkFroms = chunkTransaction.execute(status -> em
+            .createQuery("select c.chunkFrom from BulkJobCheckpoint c where c.jobName = :jobName", Long.class)
+            .setParameter("jobName", jobName)
+            .getResultList());
+        return chunkFroms == null ? new HashSet<>() : new HashSet<>(chunkFroms);
+    }
+
+    // 모든 청크가 끝날 때까지 기다린다. 실패한 청크가 있어도 나머지는 끝까지 처리해서 체크포인트를 남긴다.
+    private RuntimeException awaitAll(List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("벌크 작업 대기 중 인터럽트되었습니다.", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        return failure;
+    }
+
+    private void logProgress(String jobName, int done, int total, long rows, long start) {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("bulk job progress. job={}, chunks={}/{} ({}%), rows={}, rows/sec={}",
+            jobName, done, total, done * 100 / total, rows, rows * 1000 / elapsedMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
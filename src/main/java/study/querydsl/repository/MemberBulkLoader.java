@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.change.ChangeEntity;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량의 팀 / 회원 데이터를 적재한다.
+ * 회원 i 는 username = "member" + i, age = i 이고 팀에는 순서대로 돌아가며 배정된다.
+ */
+@Slf4j
+@Repository
+public class MemberBulkLoader {
+
+    // 물리 테이블 / 컬럼 이름은 SpringPhysicalNamingStrategy 기준
+    private static final String INSERT_MEMBER_SQL = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+
+    private final EntityManager em;
+    private final ChangeFeed changeFeed;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em, ChangeFeed changeFeed, @Value("${app.bulk-load.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.changeFeed = changeFeed;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional
+    public BulkLoadResult load(int teamCount, int memberCount, BulkLoadMode mode) {
+        long start = System.nanoTime();
+
+        List<Long> teamIds = persistTeams(teamCount);
+        if (mode == BulkLoadMode.JDBC) {
+            insertMembers(teamIds, memberCount);
+        } else {
+            persistMembers(teamIds, memberCount);
+        }
+
+        BulkLoadResult result = new BulkLoadResult(mode, teamCount + memberCount, System.nanoTime() - start);
+        log.info("bulk load finished. mode={}, rows={}, elapsed={}ms, rows/sec={}",
+            mode, result.getRows(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    // 팀 이름은 기존 데이터와 맞춰 teamA, teamB ... 로 짓고 26 개를 넘어가면 숫자를 붙인다.
+    public static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+
+    private List<Long> persistTeams(int teamCount) {
+        List<Long> teamIds = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team(teamName(i));
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        em.flush();
+        em.clear();
+        return teamIds;
+    }
+
+    private void persistMembers(List<Long> teamIds, int memberCount) {
+        for (int i = 0; i < memberCount; i++) {
+            // changeTeam() 을 쓰면 Team.members 컬렉션에 회원이 계속 쌓이므로 프록시로 FK 만 지정한다.
+            Member member = new Member("member" + i, i);
+            member.setTeam(em.getReference(Team.class, teamIds.get(i % teamIds.size())));
+            em.persist(member);
+
+            if ((i + 1) % chunkSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private void insertMembers(List<Long> teamIds, int memberCount) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        // 엔티티에 선언된 pooled 시퀀스 제너레이터를 그대로 써야 이후 em.persist() 와 id 가 겹치지 않는다.
+        IdentifierGenerator idGenerator = session.getFactory().getMetamodel()
+            .entityPersister(Member.class)
+            .getIdentifierGenerator();
+
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_MEMBER_SQL)) {
+                for (int i = 0; i < memberCount; i++) {
+                    ps.setLong(1, ((Number) idGenerator.generate(session, null)).longValue());
+                    ps.setString(2, "member" + i);
+                    ps.setInt(3, i);
+                    ps.setLong(4, teamIds.get(i % teamIds.size()));
+                    ps.addBatch();
+
+                    if ((i + 1) % chunkSize == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+        });
+
+        // JDBC 로 직접 넣은 회원은 Hibernate 가 모르므로 2차 캐시의 Team.members 컬렉션을 직접 비워준다.
+        session.getFactory().getCache().evictCollectionData(Team.class.getName() + ".members");
+        changeFeed.bulkChanged(ChangeEntity.MEMBER, "jdbc insert");
+    }
+}
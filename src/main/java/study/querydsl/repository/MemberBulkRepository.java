@@ -0,0 +1,382 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.Getter;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeEntity;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.change.ChangeType;
+import study.querydsl.change.MemberSnapshot;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 벌크 update / delete 후 em.flush(); em.clear(); 로 영속성 컨텍스트 전체를 버리는 대신,
+ * 조건에 걸렸을 수 있는 회원 엔티티만 골라서 다시 읽거나(수정) detach(삭제) 한다.
+ * Hibernate 이벤트가 생기지 않는 변경이므로 ChangeFeed 에 직접 알린다. 구독자가 있으면 대상 회원을 먼저 잠그고 변경 전 값을 읽어서
+ * id 로 update / delete 하고 회원별 이벤트로 알린다. 구독자가 없거나 대상이 max-batch-size 를 넘으면 조건으로 한 번에 바꾸고 BULK 로 알린다.
+ */
+@Repository
+public class MemberBulkRepository {
+
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final ChangeFeed changeFeed;
+
+    public MemberBulkRepository(EntityManager em, PlatformTransactionManager transactionManager, ChangeFeed changeFeed) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.changeFeed = changeFeed;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // 조건에 맞는 회원의 나이를 amount 만큼 더한다.
+    @Transactional
+    public long addAge(MemberSearchCondition condition, int amount) {
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return 0;
+        }
+
+        List<MemberSnapshot> targets = lockTargets(bulkPredicates(condition));
+        if (targets != null) {
+            Map<Long, Member> affected = managedMembersAmong(targets);
+            long updated = updateAge(targets, amount);
+            reload(affected);
+            return updated;
+        }
+
+        Map<Long, Member> affected = managedMembersMatching(condition);
+
+        long updated = queryFactory
+            .update(member)
+            .set(member.age, member.age.add(amount))
+            .where(bulkPredicates(condition))
+            .execute();
+
+        reload(affected);
+        if (updated > 0) {
+            changeFeed.bulkChanged(ChangeEntity.MEMBER, "addAge");
+        }
+        return updated;
+    }
+
+    @Transactional
+    public long delete(MemberSearchCondition condition) {
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return 0;
+        }
+
+        List<MemberSnapshot> targets = lockTargets(bulkPredicates(condition));
+        if (targets != null) {
+            managedMembersAmong(targets).values().forEach(this::detach);
+            return deleteMembers(targets);
+        }
+
+        Map<Long, Member> affected = managedMembersMatching(condition);
+
+        long deleted = queryFactory
+            .delete(member)
+            .where(bulkPredicates(condition))
+            .execute();
+
+        affected.values().forEach(this::detach);
+        if (deleted > 0) {
+            changeFeed.bulkChanged(ChangeEntity.MEMBER, "delete");
+        }
+        return deleted;
+    }
+
+    /**
+     * id 구간(chunkSize)마다 별도 트랜잭션으로 나눠서 실행해 한 번에 오래 row lock 을 잡지 않는다.
+     * 각 구간은 독립적으로 커밋되므로 호출하는 쪽에 트랜잭션이 있으면 안 된다.
+     */
+    public long addAgeInChunks(MemberSearchCondition condition, int amount, int chunkSize) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("청크 단위 벌크 연산은 트랜잭션 밖에서 호출해야 합니다.");
+        }
+
+        IdRange range = idRange(condition);
+        if (range == null) {
+            return 0;
+        }
+
+        // 청크마다 커밋되므로 변경도 청크 트랜잭션마다 알린다. (건별 이벤트면 구독자가 다시 읽지 않는다)
+        long total = 0;
+        for (long from = range.getMin(); from <= range.getMax(); from += chunkSize) {
+            total += addAgeInRange(condition, amount, from, Math.min(range.getMax(), from + chunkSize - 1));
+        }
+
+        reloadManagedInRange(range);
+        return total;
+    }
+
+    // [from, to] id 구간 하나를 독립된 트랜잭션에서 실행한다.
+    long addAgeInRange(MemberSearchCondition condition, int amount, long from, long to) {
+        Long updated = chunkTransaction.execute(status -> updateAgeInRange(condition, amount, from, to));
+        return updated == null ? 0 : updated;
+    }
+
+    // 현재 트랜잭션에 참여해서 [from, to] 구간만 update 한다.
+    long updateAgeInRange(MemberSearchCondition condition, int amount, long from, long to) {
+        List<MemberSnapshot> targets = lockTargets(bulkPredicates(condition), member.id.between(from, to));
+        if (targets != null) {
+            return updateAge(targets, amount);
+        }
+
+        long updated = queryFactory
+            .update(member)
+            .set(member.age, member.age.add(amount))
+            .where(bulkPredicates(condition))
+            .where(member.id.between(from, to))
+            .execute();
+
+        if (updated > 0) {
+            changeFeed.bulkChanged(ChangeEntity.MEMBER, "addAgeInChunks");
+        }
+        return updated;
+    }
+
+    /**
+     * 조건에 걸린 회원을 잠그고 변경 전 값을 읽는다. 잠근 회원만 id 로 바꾸므로 이벤트와 실제 변경이 어긋나지 않는다.
+     * 구독자가 없거나 대상이 한 묶음(max-batch-size)을 넘어서 어차피 BULK 로 합쳐질 때는 읽지 않고 null 을 돌려준다.
+     */
+    private List<MemberSnapshot> lockTargets(Predicate[] predicates, Predicate... extra) {
+        if (!changeFeed.hasActiveSubscribers()) {
+            return null;
+        }
+
+        int limit = changeFeed.getMaxBatchSize();
+        List<Tuple> rows = queryFactory
+            .select(member.id, member.username, member.age, member.team.id)
+            .from(member)
+            .where(predicates)
+            .where(extra)
+            .orderBy(member.id.asc())
+            .limit(limit + 1)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .fetch();
+        if (rows.size() > limit) {
+            return null;
+        }
+
+        List<MemberSnapshot> targets = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            targets.add(new MemberSnapshot(row.get(member.id), row.get(member.username), row.get(member.age), row.get(member.team.id)));
+        }
+        return targets;
+    }
+
+    private long updateAge(List<MemberSnapshot> targets, int amount) {
+        long updated = 0;
+        for (List<Long> ids : idChunks(targets)) {
+            updated += queryFactory
+                .update(member)
+                .set(member.age, member.age.add(amount))
+                .where(member.id.in(ids))
+                .execute();
+        }
+
+        List<ChangeEvent> events = new ArrayList<>(targets.size());
+        for (MemberSnapshot before : targets) {
+            events.add(ChangeEvent.member(ChangeType.UPDATE, before.getId(), before,
+                new MemberSnapshot(before.getId(), before.getUsername(), before.getAge() + amount, before.getTeamId())));
+        }
+        changeFeed.changed(events);
+        return updated;
+    }
+
+    private long deleteMembers(List<MemberSnapshot> targets) {
+        long deleted = 0;
+        for (List<Long> ids : idChunks(targets)) {
+            deleted += queryFactory
+                .delete(member)
+                .where(member.id.in(ids))
+                .execute();
+        }
+
+        changeFeed.changed(targets.stream()
+            .map(before -> ChangeEvent.member(ChangeType.DELETE, before.getId(), before, null))
+            .collect(Collectors.toList()));
+        return deleted;
+    }
+
+    private static List<List<Long>> idChunks(List<MemberSnapshot> targets) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < targets.size(); from += IN_CLAUSE_SIZE) {
+            chunks.add(targets.subList(from, Math.min(targets.size(), from + IN_CLAUSE_SIZE)).stream()
+                .map(MemberSnapshot::getId)
+                .collect(Collectors.toList()));
+        }
+        return chunks;
+    }
+
+    // OSIV 등으로 열려있는 영속성 컨텍스트가 있다면 구간 안의 회원은 더 이상 최신이 아니므로 다시 읽는다.
+    void reloadManagedInRange(IdRange range) {
+        Map<Long, Member> managed = managedMembers();
+        managed.keySet().removeIf(id -> !range.contains(id));
+        reload(managed);
+    }
+
+    IdRange idRange(MemberSearchCondition condition) {
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return null;
+        }
+
+        Tuple minMax = queryFactory
+            .select(member.id.min(), member.id.max())
+            .from(member)
+            .where(bulkPredicates(condition))
+            .fetchOne();
+
+        if (minMax == null || minMax.get(member.id.min()) == null) {
+            return null;
+        }
+        return new IdRange(minMax.get(member.id.min()), minMax.get(member.id.max()));
+    }
+
+    // 영속성 컨텍스트에 올라와 있는 회원 중 조건에 걸리는 회원. 관리 중인 회원이 없으면 쿼리도 하지 않는다.
+    private Map<Long, Member> managedMembersMatching(MemberSearchCondition condition) {
+        Map<Long, Member> managed = managedMembers();
+        if (managed.isEmpty()) {
+            return managed;
+        }
+
+        List<Long> matchingIds = queryFactory
+            .select(member.id)
+            .from(member)
+            .where(bulkPredicates(condition))
+            .where(member.id.in(managed.keySet()))
+            .fetch();
+
+        managed.keySet().retainAll(new HashSet<>(matchingIds));
+        return managed;
+    }
+
+    // 잠근 대상 중 영속성 컨텍스트에 올라와 있는 회원. 대상 id 를 이미 알고 있으므로 쿼리하지 않는다.
+    private Map<Long, Member> managedMembersAmong(List<MemberSnapshot> targets) {
+        Map<Long, Member> managed = managedMembers();
+        managed.keySet().retainAll(targets.stream().map(MemberSnapshot::getId).collect(Collectors.toSet()));
+        return managed;
+    }
+
+    // em.refresh 는 엔티티마다 select 를 하나씩 날리므로, detach 한 뒤 in 절 한 번으로 다시 읽어 영속성 컨텍스트에 올린다.
+    // 이전에 들고 있던 인스턴스는 준영속 상태가 되고, 이후 em.find / 조회는 새로 읽은 인스턴스를 돌려준다.
+    // 회원은 그대로 남아 있으므로 이미 로딩된 Team.members 컬렉션에서는 빼지 않고 새 인스턴스로 바꿔 끼운다.
+    private void reload(Map<Long, Member> affected) {
+        if (affected.isEmpty()) {
+            return;
+        }
+
+        affected.values().forEach(em::detach);
+        List<Member> reloaded = queryFactory
+            .selectFrom(member)
+            .where(member.id.in(affected.keySet()))
+            .fetch();
+
+        for (Member fresh : reloaded) {
+            Member stale = affected.get(fresh.getId());
+            List<Member> teamMembers = loadedTeamMembers(stale);
+            if (teamMembers != null) {
+                teamMembers.replaceAll(m -> m == stale ? fresh : m);
+            }
+        }
+    }
+
+    private Map<Long, Member> managedMembers() {
+        Map<Long, Member> managed = new HashMap<>();
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member) {
+                managed.put((Long) entry.getValue().getId(), (Member) entry.getKey());
+            }
+        }
+        return managed;
+    }
+
+    // 삭제할 때는 이미 로딩된 Team.members 컬렉션에서도 빼줘야 삭제된 회원이 다시 보이지 않는다.
+    private void detach(Member target) {
+        List<Member> teamMembers = loadedTeamMembers(target);
+        if (teamMembers != null) {
+            teamMembers.remove(target);
+        }
+        em.detach(target);
+    }
+
+    // 회원이 속한 팀의 members 컬렉션이 이미 로딩돼 있을 때만 돌려준다. 로딩되지 않은 컬렉션은 건드리지 않는다.
+    private static List<Member> loadedTeamMembers(Member target) {
+        Team memberTeam = target.getTeam();
+        if (memberTeam == null || !Hibernate.isInitialized(memberTeam) || !Hibernate.isInitialized(memberTeam.getMembers())) {
+            return null;
+        }
+        return memberTeam.getMembers();
+    }
+
+    // 벌크 update / delete 에서는 join 을 쓸 수 없어서 팀 이름 조건은 서브쿼리로 바꾼다.
+    private Predicate[] bulkPredicates(MemberSearchCondition condition) {
+        return new Predicate[]{
+            MemberSearchPredicates.usernameEq(condition.getUsername()),
+            teamNameIn(condition.getTeamName()),
+            MemberSearchPredicates.ageGoe(condition.getAgeGoe()),
+            MemberSearchPredicates.ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    private BooleanExpression teamNameIn(String teamName) {
+        if (!hasText(teamName)) {
+            return null;
+        }
+
+        return member.team.id.in(
+            JPAExpressions
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(teamName)));
+    }
+
+    @Getter
+    static class IdRange {
+
+        private final long min;
+        private final long max;
+
+        IdRange(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        boolean contains(Long id) {
+            return id != null && min <= id && id <= max;
+        }
+    }
+}
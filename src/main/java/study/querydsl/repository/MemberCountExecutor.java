@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.metrics.SqlContext;
+import study.querydsl.metrics.SqlRequestStats;
+
+import javax.annotation.PreDestroy;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 검색의 count 쿼리를 별도 스레드 / 별도 읽기 전용 트랜잭션(커넥션)에서 컨텐츠 조회와 동시에 실행한다. (app.parallel-count.enabled)
+ * timeout-ms 안에 끝나지 않으면 기다리지 않고 빈 값을 돌려주므로, 호출한 쪽은 추정값을 EstimatedPage 로 표시해 응답한다.
+ * 늦게 끝난 count 쿼리는 트랜잭션 타임아웃으로 DB 에서도 정리된다.
+ */
+@Slf4j
+@Component
+public class MemberCountExecutor {
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+
+    public MemberCountExecutor(PlatformTransactionManager transactionManager,
+                               @Value("${app.parallel-count.enabled:false}") boolean enabled,
+                               @Value("${app.parallel-count.timeout-ms:500}") long timeoutMillis,
+                               @Value("${app.parallel-count.pool-size:4}") int poolSize) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis) + 1));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(poolSize * 16),
+            runnable -> {
+                Thread thread = new Thread(runnable, "member-count-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    // 다른 커넥션에서는 현재 트랜잭션이 아직 flush / commit 하지 않은 변경이 보이지 않으므로, 쓰기 트랜잭션 안에서는 순차 실행한다.
+    public boolean canRunInParallel() {
+        return enabled
+            && (!TransactionSynchronizationManager.isActualTransactionActive() || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    public CompletableFuture<Long> submit(LongSupplier count) {
+        SqlRequestStats stats = SqlContext.currentRequest();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                SqlContext.bindRequest(stats);
+                try {
+                    return readOnlyTransaction.execute(status -> count.getAsLong());
+                } finally {
+                    SqlContext.unbindRequest();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            // count 풀이 밀려 있으면 호출한 스레드에서 순차 실행한다.
+            return CompletableFuture.completedFuture(count.getAsLong());
+        }
+    }
+
+    // timeout-ms 안에 끝나지 않으면 빈 값을 돌려준다. 호출한 쪽은 추정값을 쓰고 정확하지 않다고 표시해야 한다.
+    public OptionalLong await(CompletableFuture<Long> count) {
+        try {
+            return OptionalLong.of(count.get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            log.info("count query exceeded {}ms, using estimated total", timeoutMillis);
+            return OptionalLong.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OptionalLong.empty();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
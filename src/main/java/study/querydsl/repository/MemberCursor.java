@@ -0,0 +1,43 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * (age, member.id) 정렬 기준의 마지막 위치를 담는 커서.
+ * 클라이언트에는 Base64 로 인코딩된 불투명 토큰으로만 노출한다.
+ */
+@Getter
+class MemberCursor {
+
+    private static final String DELIMITER = ":";
+
+    private final int age;
+    private final long memberId;
+
+    MemberCursor(int age, long memberId) {
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    String encode() {
+        String raw = age + DELIMITER + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MemberCursor decode(String token) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(DELIMITER);
+            if (parts.length == 2) {
+                return new MemberCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) { // Base64 디코딩 실패, NumberFormatException 포함
+            throw new InvalidCursorException("잘못된 커서 토큰입니다. token=" + token, e);
+        }
+
+        throw new InvalidCursorException("잘못된 커서 토큰입니다. token=" + token);
+    }
+}
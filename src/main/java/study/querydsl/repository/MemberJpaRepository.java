@@ -1,10 +1,11 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -12,10 +13,10 @@ import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
@@ -39,23 +40,27 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
             .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl() {
         return queryFactory
             .selectFrom(member)
             .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAllByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
             .setParameter("username", username)
             .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAllByUsername_Querydsl(String username) {
         return queryFactory
             .select(member)
@@ -65,24 +70,15 @@ public class MemberJpaRepository {
     }
 
     // 동적쿼리로 검색 (Builder 사용)
+    // 조건식은 MemberSearchPredicates 의 것을 그대로 쓴다. 조건이 없으면 null 이 오고, BooleanBuilder 는 null 을 무시한다.
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
-        BooleanBuilder booleanBuilder = new BooleanBuilder();
-        if (hasText(condition.getUsername())) { // null, "" 한꺼번에 처리
-            booleanBuilder.and(member.username.eq(condition.getUsername()));
-        }
-
-        if (hasText(condition.getTeamName())) {
-            booleanBuilder.and(team.name.eq(condition.getTeamName()));
-        }
-
-        if (condition.getAgeGoe() != null) {
-            booleanBuilder.and(member.age.goe(condition.getAgeGoe()));
-        }
-
-        if (condition.getAgeLoe() != null) {
-            booleanBuilder.and(member.age.loe(condition.getAgeLoe()));
-        }
+        BooleanBuilder booleanBuilder = new BooleanBuilder()
+            .and(MemberSearchPredicates.usernameEq(condition.getUsername())) // null, "" 한꺼번에 처리
+            .and(MemberSearchPredicates.teamNameEq(condition.getTeamName()))
+            .and(MemberSearchPredicates.ageGoe(condition.getAgeGoe()))
+            .and(MemberSearchPredicates.ageLoe(condition.getAgeLoe()));
 
         return queryFactory
             .select(new QMemberTeamDto(
@@ -99,8 +95,14 @@ public class MemberJpaRepository {
     }
 
     // 동적쿼리로 검색 (Where Param 사용)
+    // 조건식은 MemberSearchPredicates 가 조건 조합별로 캐시해 둔 것을 쓰고 값만 바인딩한다.
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByWhereParam(MemberSearchCondition condition) {
-        return queryFactory
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return new ArrayList<>();
+        }
+
+        JPAQuery<MemberTeamDto> query = queryFactory
             .select(new QMemberTeamDto(
                 member.id.as("memberId"),
                 member.username,
@@ -109,45 +111,8 @@ public class MemberJpaRepository {
                 team.name.as("teamName")
             ))
             .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                // 콤마로 연결하면 and() 라는 뜻
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe()))
-            .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        if (!hasText(username)) {
-            return null;
-        }
-
-        return member.username.eq(username);
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        if (!hasText(teamName)) {
-            return null;
-        }
-
-        return team.name.eq(teamName);
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        if (ageGoe == null) {
-            return null;
-        }
-
-        return member.age.goe(ageGoe);
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        if (ageLoe == null) {
-            return null;
-        }
+            .leftJoin(member.team, team);
 
-        return member.age.loe(ageLoe);
+        return MemberSearchPredicates.where(query, condition).fetch();
     }
 }
@@ -2,17 +2,32 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    // 엔티티 조회. Member.team 을 가져오는 방법은 fetchPlan 으로 정한다.
+    List<Member> findMembers(MemberSearchCondition condition, FetchPlan fetchPlan);
+
+    // 대량 조회 결과를 메모리에 올리지 않고 스트리밍한다. 트랜잭션 안에서 사용하고 반드시 close 해야 한다.
+    Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize);
+
     // 전체 카운트를 한 번에 조회하는 단순한 방법
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     // 데이터 내용과 전체 카운트를 별도로 조회하는 방법
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    // 전체 건수를 countStrategy 로 구하는 방법. EXACT 가 아니면 EstimatedPage 를 돌려준다.
+    Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy);
+
+    // offset 없이 (age, id) 커서 이후의 데이터를 조회하는 방법 (cursor 가 null 이면 첫 페이지)
+    MemberCursorResult searchByCursor(MemberSearchCondition condition, String cursor, int size);
 }
@@ -1,100 +1,119 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.memory.InMemoryMemberStore;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+// 조회 전용 구현이므로 기본은 읽기 전용 트랜잭션 (replica 라우팅 대상). 이미 트랜잭션이 있으면 그대로 참여한다.
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchPlanCache planCache;
+    private final MemberCountExecutor countExecutor;
+    private final MemberCountEstimator countEstimator;
+    private final InMemoryMemberStore memoryStore;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberSearchPlanCache planCache,
+                                MemberCountExecutor countExecutor, MemberCountEstimator countEstimator,
+                                InMemoryMemberStore memoryStore) {
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.planCache = planCache;
+        this.countExecutor = countExecutor;
+        this.countEstimator = countEstimator;
+        this.memoryStore = memoryStore;
     }
 
+    // 메모리에 올려둔 데이터로 답할 수 있으면 DB 에 가지 않는다.
+    // 그 외에는 조건 조합(shape)별로 미리 직렬화해 둔 JPQL 을 재사용하고 값만 바인딩한다.
+    // 메모리에서 답할 때 커넥션을 잡지 않도록 트랜잭션은 열지 않는다. (readOnly 표시는 남으므로 replica 라우팅은 그대로)
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")
-            ))
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                // 콤마로 연결하면 and() 라는 뜻
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe()))
-            .fetch();
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return planCache.search(condition);
+        }
+        return memoryStore.search(condition).orElseGet(() -> planCache.search(condition));
     }
 
-
-    private BooleanExpression usernameEq(String username) {
-        if (!hasText(username)) {
-            return null;
+    @Override
+    public List<Member> findMembers(MemberSearchCondition condition, FetchPlan fetchPlan) {
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return new ArrayList<>();
         }
 
-        return member.username.eq(username);
-    }
+        JPAQuery<Member> query = queryFactory.selectFrom(member);
 
-    private BooleanExpression teamNameEq(String teamName) {
-        if (!hasText(teamName)) {
-            return null;
+        switch (fetchPlan.getTeamStrategy()) {
+            case FETCH_JOIN:
+                query.leftJoin(member.team, team).fetchJoin();
+                break;
+            case ENTITY_GRAPH:
+                query.setHint(QueryHints.HINT_FETCHGRAPH, em.getEntityGraph(Member.TEAM_GRAPH));
+                joinTeamIfNeeded(query, condition);
+                break;
+            default:
+                joinTeamIfNeeded(query, condition);
+                break;
         }
 
-        return team.name.eq(teamName);
+        return MemberSearchPredicates.where(query, condition).fetch();
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        if (ageGoe == null) {
-            return null;
+    // fetch join 이 아닌 경우 팀 이름 조건이 있을 때만 join 한다.
+    private void joinTeamIfNeeded(JPAQuery<?> query, MemberSearchCondition condition) {
+        if (hasText(condition.getTeamName())) {
+            query.leftJoin(member.team, team);
         }
-
-        return member.age.goe(ageGoe);
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        if (ageLoe == null) {
-            return null;
+    @Override
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return Stream.empty();
         }
 
-        return member.age.loe(ageLoe);
+        // 결과를 List 로 한꺼번에 올리지 않고 forward-only 커서로 fetchSize 만큼씩 읽어온다.
+        return memberTeamQuery(condition)
+            .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(QueryHints.HINT_READONLY, true)
+            .stream();
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> result = queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")))
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return Page.empty(pageable);
+        }
+
+        List<MemberTeamDto> result = memberTeamQuery(condition)
             .offset(pageable.getOffset())
             .limit(pageable.getPageSize())
             .fetch();
@@ -104,7 +123,80 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> result = queryFactory
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return Page.empty(pageable);
+        }
+
+        JPAQuery<Long> countQuery = countQuery(condition);
+
+        // 옵션이 켜져 있으면 count 를 다른 커넥션에서 먼저 시작해두고 컨텐츠를 조회한다.
+        CompletableFuture<Long> parallelCount = countExecutor.canRunInParallel()
+            ? countExecutor.submit(countQuery::fetchOne)
+            : null;
+
+        List<MemberTeamDto> result = memberTeamQuery(condition)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        if (parallelCount != null) {
+            // 마지막 페이지면 count 를 기다리지 않아도 정확한 전체 건수를 안다. 아직 시작하지 않은 count 는 실행되지 않는다.
+            if (isLastPage(result, pageable)) {
+                parallelCount.cancel(false);
+                return new PageImpl<>(result, pageable, pageable.getOffset() + result.size());
+            }
+            OptionalLong total = countExecutor.await(parallelCount);
+            if (total.isPresent()) {
+                return new PageImpl<>(result, pageable, total.getAsLong());
+            }
+            // count 가 늦으면 기다리지 않고 추정값으로 응답하되, 클라이언트가 알 수 있도록 EstimatedPage 로 표시한다.
+            return estimatedPage(result, pageable);
+        }
+
+        // 첫 페이지의 컨텐츠가 페이지 크기보다 작거나 마지막 페이지인 경우 count 쿼리를 생략한다.
+        return PageableExecutionUtils.getPage(result, pageable, countQuery::fetchOne);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy) {
+        if (countStrategy == CountStrategy.EXACT) {
+            return searchPageComplex(condition, pageable);
+        }
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return new EstimatedPage<>(new ArrayList<>(), pageable, 0, true);
+        }
+
+        List<MemberTeamDto> result = memberTeamQuery(condition)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        // 마지막 페이지라면 건수를 세지 않아도 정확한 전체 건수를 알 수 있다.
+        if (isLastPage(result, pageable)) {
+            return new EstimatedPage<>(result, pageable, pageable.getOffset() + result.size(), true);
+        }
+
+        if (countStrategy == CountStrategy.ESTIMATED) {
+            OptionalLong estimate = countEstimator.estimatedCount(condition);
+            if (estimate.isPresent()) {
+                // 예상치가 이미 본 데이터보다 작게 나오면 최소한 다음 페이지는 있는 것으로 보정한다.
+                long seen = pageable.getOffset() + result.size() + 1;
+                return new EstimatedPage<>(result, pageable, Math.max(estimate.getAsLong(), seen), false);
+            }
+        }
+
+        long capped = countEstimator.cappedCount(condition);
+        if (capped <= countEstimator.getCap()) {
+            return new EstimatedPage<>(result, pageable, capped, true);
+        }
+        // 상한을 넘은 페이지에서 cap 을 그대로 주면 PageImpl 이 offset + 컨텐츠 크기로 맞춰서 다음 페이지가 없는 것처럼 보인다.
+        long seen = pageable.getOffset() + result.size() + (result.isEmpty() ? 0 : 1);
+        return new EstimatedPage<>(result, pageable, Math.max(countEstimator.getCap(), seen), false);
+    }
+
+    // 검색 API 공통 select / join / where. 조건식은 shape 별로 캐시된 것을 쓰고 값만 바인딩한다.
+    private JPAQuery<MemberTeamDto> memberTeamQuery(MemberSearchCondition condition) {
+        JPAQuery<MemberTeamDto> query = queryFactory
             .select(new QMemberTeamDto(
                 member.id.as("memberId"),
                 member.username,
@@ -112,31 +204,64 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 team.id.as("teamId"),
                 team.name.as("teamName")))
             .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
-            .offset(pageable.getOffset())
-            .limit(pageable.getPageSize())
-            .fetch();
+            .leftJoin(member.team, team);
+        return MemberSearchPredicates.where(query, condition);
+    }
 
-        // new PageImpl() 에서 count 는 어찌 쓰는건지 잘 모르겠음 ..
-        Long count = queryFactory
+    // count 쿼리는 join 이 필요 없는 경우 제외하고, 필요할 때만 실행되도록 LongSupplier 로 넘긴다.
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> countQuery = queryFactory
             .select(member.count())
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
-            .fetchOne();
+            .from(member);
 
-        return new PageImpl<>(result);
+        if (hasText(condition.getTeamName())) {
+            countQuery.leftJoin(member.team, team);
+        }
+
+        return MemberSearchPredicates.where(countQuery, condition);
+    }
+
+    // count 가 제때 끝나지 않았을 때의 추정값. 페이지가 꽉 찼으면 최소한 다음 페이지가 있는 것으로 본다.
+    private Page<MemberTeamDto> estimatedPage(List<MemberTeamDto> content, Pageable pageable) {
+        return new EstimatedPage<>(content, pageable, pageable.getOffset() + content.size() + 1, false);
+    }
+
+    // 페이지가 덜 찼으면 본 만큼이 정확한 전체 건수다. offset 이 끝을 넘어 비어 있는 페이지는 알 수 없다. (PageableExecutionUtils 와 같은 판단)
+    private static boolean isLastPage(List<MemberTeamDto> content, Pageable pageable) {
+        return content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty());
+    }
+
+    @Override
+    public MemberCursorResult searchByCursor(MemberSearchCondition condition, String cursor, int size) {
+        BooleanExpression afterCursor = afterCursor(cursor); // 잘못된 커서는 조건과 상관없이 거절한다.
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return new MemberCursorResult(new ArrayList<>(), null);
+        }
+
+        // offset 대신 마지막으로 조회한 (age, id) 이후부터 읽기 때문에 페이지 깊이와 상관없이 인덱스 범위 스캔으로 끝난다.
+        List<MemberTeamDto> result = memberTeamQuery(condition)
+            .where(afterCursor)
+            .orderBy(member.age.asc(), member.id.asc())
+            .limit(size + 1) // 다음 페이지 존재 여부 확인용으로 하나 더 조회
+            .fetch();
+
+        if (result.size() <= size) {
+            return new MemberCursorResult(result, null);
+        }
+
+        List<MemberTeamDto> content = result.subList(0, size);
+        MemberTeamDto last = content.get(size - 1);
+        String nextCursor = new MemberCursor(last.getAge(), last.getMemberId()).encode();
+        return new MemberCursorResult(new ArrayList<>(content), nextCursor);
     }
-}
 
+    private BooleanExpression afterCursor(String cursor) {
+        if (!hasText(cursor)) {
+            return null;
+        }
+
+        MemberCursor memberCursor = MemberCursor.decode(cursor);
+        return member.age.gt(memberCursor.getAge())
+            .or(member.age.eq(memberCursor.getAge()).and(member.id.gt(memberCursor.getMemberId())));
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.SearchShapePlanDto;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static study.querydsl.repository.MemberSearchPredicates.AGE_GOE;
+import static study.querydsl.repository.MemberSearchPredicates.AGE_LOE;
+import static study.querydsl.repository.MemberSearchPredicates.SHAPE_COUNT;
+import static study.querydsl.repository.MemberSearchPredicates.TEAM_NAME;
+import static study.querydsl.repository.MemberSearchPredicates.USERNAME;
+
+/**
+ * MemberSearchCondition 의 조건 조합(shape)마다 실제로 실행되는 SQL 에 EXPLAIN 을 돌려서
+ * 인덱스를 못 타고 풀 스캔으로 떨어지는 조합을 찾는다. (H2, MySQL)
+ */
+@Slf4j
+@Repository
+public class MemberSearchExplainer {
+
+    private final EntityManager em;
+    private final MemberSearchPlanCache planCache;
+
+    public MemberSearchExplainer(EntityManager em, MemberSearchPlanCache planCache) {
+        this.em = em;
+        this.planCache = planCache;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SearchShapePlanDto> explainAll() {
+        List<SearchShapePlanDto> result = new ArrayList<>();
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            result.add(explain(shape));
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public SearchShapePlanDto explain(int shape) {
+        String sql = sqlFor(shape);
+        List<String> plan = explainRows(sql, sampleParameters(shape));
+        boolean fullScan = plan.stream().anyMatch(MemberSearchExplainer::isFullScan);
+
+        if (fullScan) {
+            log.info("search shape falls back to full scan. conditions={}, plan={}", MemberSearchPredicates.describe(shape), plan);
+        }
+        return new SearchShapePlanDto(shape, MemberSearchPredicates.describe(shape), sql, plan, fullScan);
+    }
+
+    // 캐시된 JPQL 을 Hibernate 가 실제로 만드는 SQL 로 변환한다.
+    String sqlFor(int shape) {
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        return sessionFactory.getQueryPlanCache()
+            .getHQLQueryPlan(planCache.jpqlFor(shape), false, Collections.emptyMap())
+            .getSqlStrings()[0];
+    }
+
+    List<String> explainRows(String sql, List<Object> parameters) {
+        List<String> rows = new ArrayList<>();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    ps.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(describeRow(rs));
+                    }
+                }
+            }
+        });
+        return rows;
+    }
+
+    // 플랜 모양만 보면 되므로 파라미터는 아무 값이나 넣는다.
+    private static List<Object> sampleParameters(int shape) {
+        List<Object> parameters = new ArrayList<>();
+        if ((shape & USERNAME) != 0) {
+            parameters.add("member1");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            parameters.add("teamA");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            parameters.add(10);
+        }
+        if ((shape & AGE_LOE) != 0) {
+            parameters.add(20);
+        }
+        return parameters;
+    }
+
+    // H2 는 PLAN 컬럼 하나, MySQL 은 테이블마다 id / type / key / rows ... 컬럼이 나온다.
+    private static String describeRow(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        if (metaData.getColumnCount() == 1) {
+            return rs.getString(1);
+        }
+
+        List<String> columns = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(metaData.getColumnLabel(i).toLowerCase() + "=" + rs.getString(i));
+        }
+        return String.join(", ", columns);
+    }
+
+    private static boolean isFullScan(String planRow) {
+        return planRow.contains(".tableScan") // H2
+            || planRow.contains("type=ALL");  // MySQL
+    }
+}
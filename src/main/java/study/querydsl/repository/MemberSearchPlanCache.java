@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 은 어떤 조건이 들어있느냐(shape)에 따라 16 가지 JPQL 만 만들어진다.
+ * shape 별로 Querydsl 이 직렬화한 JPQL 을 한 번만 만들어 두고, 이후 호출에서는 파라미터만 바인딩한다.
+ * 같은 JPQL 문자열을 재사용하므로 Hibernate 의 HQL 쿼리 플랜 캐시도 항상 hit 된다.
+ */
+@Component
+public class MemberSearchPlanCache {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final Map<Integer, String> plans = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public MemberSearchPlanCache(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (MemberSearchPredicates.isContradiction(condition)) {
+            return new ArrayList<>();
+        }
+
+        int shape = MemberSearchPredicates.shapeOf(condition);
+        Query query = em.createQuery(plan(shape));
+
+        List<Object> parameters = MemberSearchPredicates.parametersOf(condition);
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new MemberTeamDto((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]));
+        }
+        return result;
+    }
+
+    public String plan(int shape) {
+        String jpql = plans.get(shape);
+        if (jpql != null) {
+            hitCount.incrementAndGet();
+            return jpql;
+        }
+
+        missCount.incrementAndGet();
+        return plans.computeIfAbsent(shape, this::compile);
+    }
+
+    // 통계에 잡히지 않는 조회 (EXPLAIN 등 진단용)
+    public String jpqlFor(int shape) {
+        return plans.computeIfAbsent(shape, this::compile);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public int getPlanCount() {
+        return plans.size();
+    }
+
+    // where 절은 MemberSearchPredicates 의 shape 별 Param 조건식을 그대로 쓰므로 직렬화하면 ?1, ?2 ... 위치 파라미터가 된다.
+    private String compile(int shape) {
+        return queryFactory
+            .select(new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(MemberSearchPredicates.templates(shape))
+            .toString();
+    }
+}
@@ -0,0 +1,167 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 검색 조건을 Querydsl 조건식으로 바꾸는 공통 코드.
+ * 조건 조합(shape)은 16 가지뿐이므로 shape 별 조건식을 Param 으로 한 번만 만들어두고, 검색할 때는 값만 바인딩한다.
+ * 조건식은 불변이라 여러 스레드 / 쿼리가 같이 써도 되고, 검색마다 BooleanExpression 트리를 새로 만들지 않는다.
+ * 빈 문자열 / 공백 문자열은 조건이 없는 것으로 보고, ageGoe > ageLoe 처럼 결과가 있을 수 없는 조건은 isContradiction 으로 걸러낸다.
+ */
+public final class MemberSearchPredicates {
+
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+    public static final int SHAPE_COUNT = 1 << 4;
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private static final Predicate[][] TEMPLATES = new Predicate[SHAPE_COUNT][];
+
+    static {
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            List<Predicate> predicates = new ArrayList<>(4);
+            if ((shape & USERNAME) != 0) {
+                predicates.add(member.username.eq(USERNAME_PARAM));
+            }
+            if ((shape & TEAM_NAME) != 0) {
+                predicates.add(team.name.eq(TEAM_NAME_PARAM));
+            }
+            if ((shape & AGE_GOE) != 0) {
+                predicates.add(member.age.goe(AGE_GOE_PARAM));
+            }
+            if ((shape & AGE_LOE) != 0) {
+                predicates.add(member.age.loe(AGE_LOE_PARAM));
+            }
+            TEMPLATES[shape] = predicates.toArray(new Predicate[0]);
+        }
+    }
+
+    private MemberSearchPredicates() {
+    }
+
+    // 캐시된 조건식을 where 절에 넣고 값을 바인딩한다. teamName 조건이 있으면 query 에 team 이 join 되어 있어야 한다.
+    public static <T> JPAQuery<T> where(JPAQuery<T> query, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        query.where(TEMPLATES[shape]);
+        if ((shape & USERNAME) != 0) {
+            query.set(USERNAME_PARAM, condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.set(TEAM_NAME_PARAM, condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.set(AGE_GOE_PARAM, condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.set(AGE_LOE_PARAM, condition.getAgeLoe());
+        }
+        return query;
+    }
+
+    public static Predicate[] templates(int shape) {
+        return TEMPLATES[shape].clone();
+    }
+
+    // 값이 바로 들어간 조건식. Param 을 바인딩할 수 없는 벌크 update / delete, BooleanBuilder 예제에서 쓴다.
+    public static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    // query 에 team 이 join 되어 있어야 한다. 벌크 update / delete 는 join 을 쓸 수 없으므로 서브쿼리로 바꿔 쓴다.
+    public static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    public static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    // 나이 범위가 비어 있으면 DB 에 묻지 않아도 결과가 없다.
+    public static boolean isContradiction(MemberSearchCondition condition) {
+        return condition.getAgeGoe() != null && condition.getAgeLoe() != null
+            && condition.getAgeGoe() > condition.getAgeLoe();
+    }
+
+    // 공백 문자열 조건을 null 로 바꾼 사본. 캐시 키 등 조건을 값으로 비교해야 할 때 쓴다.
+    public static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(condition.getUsername()) ? condition.getUsername() : null);
+        normalized.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        normalized.setAgeGoe(condition.getAgeGoe());
+        normalized.setAgeLoe(condition.getAgeLoe());
+        return normalized;
+    }
+
+    public static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    // JPQL 의 위치 기반 파라미터(?1, ?2 ...)와 SQL 의 ? 는 where 절에 나오는 순서대로 번호가 매겨진다.
+    public static List<Object> parametersOf(MemberSearchCondition condition) {
+        List<Object> parameters = new ArrayList<>(4);
+        if (hasText(condition.getUsername())) {
+            parameters.add(condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            parameters.add(condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            parameters.add(condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            parameters.add(condition.getAgeLoe());
+        }
+        return parameters;
+    }
+
+    public static String describe(int shape) {
+        List<String> names = new ArrayList<>();
+        if ((shape & USERNAME) != 0) {
+            names.add("username");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            names.add("teamName");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            names.add("ageGoe");
+        }
+        if ((shape & AGE_LOE) != 0) {
+            names.add("ageLoe");
+        }
+        return names.isEmpty() ? "(none)" : String.join(", ", names);
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과 전체를 NDJSON / CSV 로 응답 스트림에 바로 써 내려간다.
+ * 결과 크기와 상관없이 힙에는 fetchSize 만큼의 로우만 올라온다.
+ * MySQL Connector/J 는 useCursorFetch=true 일 때만 fetchSize 를 지킨다. (application-prod.yml 의 data-source-properties)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int CLEAR_INTERVAL = 1_000;
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Transactional(readOnly = true)
+    public long exportNdjson(MemberSearchCondition condition, OutputStream outputStream) throws IOException {
+        return export(condition, outputStream, null, (writer, dto) -> {
+            writer.write(objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCsv(MemberSearchCondition condition, OutputStream outputStream) throws IOException {
+        return export(condition, outputStream, "memberId,username,age,teamId,teamName", (writer, dto) -> {
+            writer.write(String.valueOf(dto.getMemberId()));
+            writer.write(',');
+            writer.write(csv(dto.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(dto.getAge()));
+            writer.write(',');
+            writer.write(dto.getTeamId() == null ? "" : String.valueOf(dto.getTeamId()));
+            writer.write(',');
+            writer.write(csv(dto.getTeamName()));
+            writer.write('\n');
+        });
+    }
+
+    private long export(MemberSearchCondition condition, OutputStream outputStream, String header, RowWriter rowWriter) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (header != null) {
+            writer.write(header);
+            writer.write('\n');
+        }
+
+        long count = 0;
+        try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, FETCH_SIZE)) {
+            Iterator<MemberTeamDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(writer, iterator.next());
+
+                // DTO 조회라 영속성 컨텍스트에 쌓이는 엔티티는 없지만, 혹시 모를 누적을 막기 위해 주기적으로 비워준다.
+                if (++count % CLEAR_INTERVAL == 0) {
+                    writer.flush();
+                    em.clear();
+                }
+            }
+        }
+
+        writer.flush();
+        log.info("member export finished. rows={}", count);
+        return count;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Writer writer, MemberTeamDto dto) throws IOException;
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursorResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.CountStrategy;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+
+/**
+ * 조회 API 전용 서비스. open-in-view 를 끈 상태에서 컨트롤러는 이 서비스만 호출한다.
+ * 모든 메서드는 읽기 전용 트랜잭션 안에서 DTO 를 끝까지 만들어 돌려주므로,
+ * 메서드가 끝나는 시점에 커넥션이 풀로 반납되고 JSON 직렬화는 커넥션 없이 진행된다.
+ * (엔티티를 돌려주면 직렬화 중 지연 로딩이 일어나므로 DTO 만 돌려준다)
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberQueryService {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return memberJpaRepository.searchByWhereParam(condition);
+    }
+
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy) {
+        return memberRepository.searchPage(condition, pageable, countStrategy);
+    }
+
+    public MemberCursorResult searchByCursor(MemberSearchCondition condition, String cursor, int size) {
+        return memberRepository.searchByCursor(condition, cursor, size);
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.metrics.SqlContext;
+import study.querydsl.metrics.SqlRequestStats;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 회원 검색 실행 위치를 정한다. (app.member-search-executor.mode)
+ * direct: Tomcat 요청 스레드에서 그대로 실행한다. (기존 동작, MemberSearchController 가 동기 응답)
+ * pool: 검색 전용 스레드 풀에서 실행하고 CompletableFuture 로 돌려준다. (PooledMemberSearchController)
+ * 요청 스레드는 바로 반납되고, 동시에 DB 를 쓰는 검색 수는 풀 크기(max-concurrency)로 제한되므로
+ * 커넥션 풀 크기 이하로 맞춰두면 커넥션을 기다리며 막혀있는 스레드가 생기지 않는다.
+ * 대기열(queue-capacity)까지 차면 RejectedExecutionException 으로 바로 거절한다.
+ */
+@Slf4j
+@Component
+public class MemberSearchExecutor {
+
+    private final boolean pooled;
+    private final ThreadPoolExecutor executor;
+
+    public MemberSearchExecutor(@Value("${app.member-search-executor.mode:direct}") String mode,
+                                @Value("${app.member-search-executor.max-concurrency:10}") int maxConcurrency,
+                                @Value("${app.member-search-executor.queue-capacity:1000}") int queueCapacity) {
+        if (!"direct".equalsIgnoreCase(mode) && !"pool".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("app.member-search-executor.mode 는 direct 또는 pool 이어야 합니다. mode=" + mode);
+        }
+        this.pooled = "pool".equalsIgnoreCase(mode);
+        this.executor = pooled ? newExecutor(maxConcurrency, queueCapacity) : null;
+    }
+
+    private static ThreadPoolExecutor newExecutor(int maxConcurrency, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "member-search-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> search) {
+        if (!pooled) {
+            throw new IllegalStateException("app.member-search-executor.mode=pool 일 때만 사용할 수 있습니다.");
+        }
+
+        // 요청 단위 SQL 통계 / 쿼리 예산은 요청 스레드의 ThreadLocal 에 있으므로 작업 스레드로 옮겨준다.
+        SqlRequestStats stats = SqlContext.currentRequest();
+        return CompletableFuture.supplyAsync(() -> {
+            SqlContext.bindRequest(stats);
+            try {
+                return search.get();
+            } finally {
+                SqlContext.unbindRequest();
+            }
+        }, executor);
+    }
+
+    public int getActiveCount() {
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
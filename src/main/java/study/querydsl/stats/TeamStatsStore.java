@@ -0,0 +1,260 @@
+package study.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.dto.TeamStatsDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 나이 통계(count, sum, max, min)를 메모리에 들고 있다가 /teams/stats 에 O(팀 수)로 답한다. (app.team-stats.enabled)
+ * 적재할 때만 (팀, 나이)별 group by 로 집계하고, 이후에는 TeamStatsUpdater 가 커밋된 회원 / 팀 변경을 건별로 더하고 뺀다.
+ * max / min 은 삭제되거나 다른 팀으로 옮겨가면 다시 구해야 하므로 팀마다 나이별 회원 수(TreeMap)를 둔다.
+ * 건별로 따라갈 수 없는 변경(어떤 회원인지 모르는 BULK, 이전 값을 모르는 update, 모르는 팀)이 오면 TeamStatsUpdater 가 reload() 한다.
+ * reload() 는 ChangeFeed.readConsistently() 안에서 집계하고 그때의 sequence 를 기억한다. 집계에 이미 보인 커밋의 묶음(그 sequence 이하)은
+ * 나중에 전달되어도 건너뛰므로 reload() 와 동시에 커밋된 변경도 한 번만 반영된다.
+ * 비활성화되어 있거나 아직 적재되지 않았으면 매번 group by 쿼리로 집계한다.
+ */
+@Slf4j
+@Component
+public class TeamStatsStore {
+
+    private final boolean enabled;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate reloadTransaction;
+    private final ChangeFeed changeFeed;
+
+    private final Map<Long, TeamRollup> rollups = new HashMap<>();
+    private long loadedSequence; // 마지막 집계에 반영된 ChangeFeed sequence
+    private volatile boolean loaded;
+    private volatile boolean stale; // 마지막 reload() 가 실패했으면 다음 변경 묶음에서 다시 집계한다.
+
+    public TeamStatsStore(EntityManager em,
+                          PlatformTransactionManager transactionManager,
+                          ChangeFeed changeFeed,
+                          @Value("${app.team-stats.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.changeFeed = changeFeed;
+        // 커밋 후 구독자 안에서도 불릴 수 있으므로 항상 새 트랜잭션으로 읽는다.
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        // readConsistently() 가 보장하는 "sequence 이하의 커밋은 모두 보인다" 는 primary 에서만 성립한다.
+        // readOnly 면 replica 로 라우팅되어 복제 지연만큼 빠진 커밋을 건너뛰게 되므로 집계는 readOnly 를 걸지 않고 primary 에서 읽는다.
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    // 회원 수가 아니라 (팀 수 x 나이 종류) 만큼의 row 만 읽는다.
+    public synchronized void reload() {
+        loaded = false;
+        rollups.clear();
+
+        try {
+            reloadTransaction.executeWithoutResult(status -> loadedSequence = changeFeed.readConsistently(this::load));
+            stale = false;
+        } catch (RuntimeException e) {
+            // 실패하면 loaded=false 로 남아서 stats() 는 group by 쿼리로 답한다.
+            stale = true;
+            throw e;
+        }
+        loaded = true;
+
+        log.info("team stats loaded. teams={}", rollups.size());
+    }
+
+    private void load() {
+        List<Tuple> rows = queryFactory
+            .select(team.id, team.name, member.age, member.count())
+            .from(team)
+            .leftJoin(team.members, member)
+            .groupBy(team.id, team.name, member.age)
+            .fetch();
+
+        for (Tuple row : rows) {
+            TeamRollup rollup = rollups.computeIfAbsent(row.get(team.id), id -> new TeamRollup(row.get(team.name)));
+            Long count = row.get(member.count());
+            if (row.get(member.age) != null && count != null && count > 0) {
+                rollup.add(row.get(member.age), count);
+            }
+        }
+    }
+
+    // 팀 이름별로 합쳐서 이름 순으로 돌려준다. 회원이 없는 팀은 group by 쿼리와 마찬가지로 빠진다.
+    public List<TeamStatsDto> stats() {
+        if (!enabled || !loaded) {
+            return queryStats();
+        }
+
+        synchronized (this) {
+            Map<String, TeamRollup> byName = new TreeMap<>(Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+            for (TeamRollup rollup : rollups.values()) {
+                if (rollup.count > 0) {
+                    byName.computeIfAbsent(rollup.name, TeamRollup::new).merge(rollup);
+                }
+            }
+
+            List<TeamStatsDto> result = new ArrayList<>(byName.size());
+            byName.values().forEach(rollup -> result.add(rollup.toDto()));
+            return result;
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    long getLoadedSequence() {
+        return loadedSequence;
+    }
+
+    /**
+     * 마지막 집계 이후의 묶음(sequence)일 때만 changes 로 건별 반영한다. 집계 쿼리에 이미 보인 묶음은 건너뛴다.
+     * changes 가 false 를 돌려주면(건별로 반영할 수 없으면) 다시 집계한다. 반영과 sequence 확인이 한 lock 안에서 일어나야
+     * 다른 스레드의 reload() 와 겹쳐도 두 번 세지 않는다.
+     */
+    synchronized void apply(long sequence, BooleanSupplier changes) {
+        if (!loaded || sequence <= loadedSequence) {
+            return;
+        }
+        if (!changes.getAsBoolean()) {
+            reload();
+        }
+    }
+
+    // 건별로 반영할 수 없으면(모르는 팀, 없는 나이를 빼려는 경우) false. 호출한 쪽이 reload() 한다.
+    synchronized boolean addMember(Long teamId, int age) {
+        if (!loaded || teamId == null) {
+            return true;
+        }
+
+        TeamRollup rollup = rollups.get(teamId);
+        if (rollup == null) {
+            return false;
+        }
+        rollup.add(age, 1);
+        return true;
+    }
+
+    synchronized boolean removeMember(Long teamId, int age) {
+        if (!loaded || teamId == null) {
+            return true;
+        }
+
+        TeamRollup rollup = rollups.get(teamId);
+        return rollup != null && rollup.remove(age);
+    }
+
+    synchronized void putTeam(Long id, String name) {
+        if (!loaded) {
+            return;
+        }
+
+        TeamRollup rollup = rollups.get(id);
+        if (rollup == null) {
+            rollups.put(id, new TeamRollup(name));
+        } else {
+            rollup.name = name;
+        }
+    }
+
+    synchronized void removeTeam(Long id) {
+        if (loaded) {
+            rollups.remove(id);
+        }
+    }
+
+    // 미리 집계하지 않을 때와 테스트에서 메모리 집계 결과를 검증할 때 쓴다.
+    List<TeamStatsDto> queryStats() {
+        List<TeamStatsDto> result = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            List<Tuple> rows = queryFactory
+                .select(team.name, member.count(), member.age.sum(), member.age.max(), member.age.min())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+
+            for (Tuple row : rows) {
+                result.add(new TeamStatsDto(row.get(team.name), row.get(member.count()),
+                    row.get(member.age.sum()), row.get(member.age.max()), row.get(member.age.min())));
+            }
+        });
+        return result;
+    }
+
+    private static class TeamRollup {
+
+        private String name;
+        private long count;
+        private long sum;
+        private final TreeMap<Integer, Long> countByAge = new TreeMap<>();
+
+        TeamRollup(String name) {
+            this.name = name;
+        }
+
+        void add(int age, long members) {
+            count += members;
+            sum += (long) age * members;
+            countByAge.merge(age, members, Long::sum);
+        }
+
+        // 없는 나이를 빼려고 하면 집계가 어긋난 것이므로 false
+        boolean remove(int age) {
+            Long members = countByAge.get(age);
+            if (members == null) {
+                return false;
+            }
+            if (members == 1) {
+                countByAge.remove(age);
+            } else {
+                countByAge.put(age, members - 1);
+            }
+            count--;
+            sum -= age;
+            return true;
+        }
+
+        void merge(TeamRollup other) {
+            other.countByAge.forEach(this::add);
+        }
+
+        TeamStatsDto toDto() {
+            return new TeamStatsDto(name, count, sum, countByAge.lastKey(), countByAge.firstKey());
+        }
+    }
+}
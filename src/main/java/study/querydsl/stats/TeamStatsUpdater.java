@@ -0,0 +1,62 @@
+package study.querydsl.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.change.ChangeBatch;
+import study.querydsl.change.ChangeEntity;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeSubscriber;
+import study.querydsl.change.ChangeType;
+import study.querydsl.change.MemberSnapshot;
+
+/**
+ * 커밋된 회원 / 팀 변경을 TeamStatsStore 에 건별로 더하고 뺀다. (app.team-stats.enabled=true 일 때만 구독)
+ * 회원 update 는 이전 팀 / 나이를 빼고 새 팀 / 나이를 더하므로 changeTeam 과 나이 변경이 모두 반영된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatsUpdater implements ChangeSubscriber {
+
+    private final TeamStatsStore store;
+
+    @Value("${app.team-stats.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public boolean isActive() {
+        return enabled;
+    }
+
+    // 하나라도 건별로 반영할 수 없으면 다시 집계한다. 이 묶음은 이미 커밋되었으므로 나머지 이벤트도 reload() 결과에 들어 있다.
+    // 직전 reload() 가 실패했으면 그 사이 변경을 놓쳤으므로 이번 묶음에서 다시 집계한다.
+    @Override
+    public void onChanges(ChangeBatch batch) {
+        if (store.isStale()) {
+            store.reload();
+            return;
+        }
+        store.apply(batch.getSequence(), () -> !batch.hasBulk() && batch.getEvents().stream().allMatch(this::apply));
+    }
+
+    private boolean apply(ChangeEvent event) {
+        if (event.getEntity() == ChangeEntity.TEAM) {
+            if (event.getType() == ChangeType.DELETE) {
+                store.removeTeam(event.getId());
+            } else {
+                store.putTeam(event.getId(), event.getTeamNameAfter());
+            }
+            return true;
+        }
+
+        MemberSnapshot before = event.getMemberBefore();
+        MemberSnapshot after = event.getMemberAfter();
+        if (event.getType() != ChangeType.INSERT && before == null) {
+            return false;
+        }
+        if (before != null && !store.removeMember(before.getTeamId(), before.getAge())) {
+            return false;
+        }
+        return after == null || store.addMember(after.getTeamId(), after.getAge());
+    }
+}
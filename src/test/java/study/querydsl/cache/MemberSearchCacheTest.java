@@ -0,0 +1,55 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchCacheTest {
+
+    MemberSearchCache cache = new MemberSearchCache(true, 100, 60);
+
+    @Test
+    void sameNormalizedConditionHitsCache() {
+        AtomicInteger loadCount = new AtomicInteger();
+
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername(" ");
+        MemberSearchCondition empty = new MemberSearchCondition();
+
+        cache.get("v2", blank, PageRequest.of(0, 10), () -> List.of(loadCount.incrementAndGet()));
+        cache.get("v2", empty, PageRequest.of(0, 10), () -> List.of(loadCount.incrementAndGet()));
+        cache.get("v2", empty, PageRequest.of(1, 10), () -> List.of(loadCount.incrementAndGet()));
+
+        assertThat(loadCount.get()).isEqualTo(2);
+        assertThat(cache.stats()).singleElement()
+            .satisfies(stats -> assertThat(stats.getHitCount()).isEqualTo(1));
+    }
+
+    @Test
+    void invalidateAllEvictsEveryEndpoint() {
+        AtomicInteger loadCount = new AtomicInteger();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        cache.get("v1", condition, null, () -> List.of(loadCount.incrementAndGet()));
+        cache.invalidateAll();
+        cache.get("v1", condition, null, () -> List.of(loadCount.incrementAndGet()));
+
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        MemberSearchCache disabled = new MemberSearchCache(false, 100, 60);
+        AtomicInteger loadCount = new AtomicInteger();
+
+        disabled.get("v1", new MemberSearchCondition(), null, loadCount::incrementAndGet);
+        disabled.get("v1", new MemberSearchCondition(), null, loadCount::incrementAndGet);
+
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,191 @@
+package study.querydsl.change;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// 커밋 후에 전달되는지 보려면 트랜잭션을 직접 나눠야 한다. 전달은 change-feed 스레드에서 하므로 awaitDelivery() 로 기다린 뒤 확인한다.
+@SpringBootTest
+class ChangeFeedTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    RecordingSubscriber subscriber;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() throws InterruptedException {
+        tx = new TransactionTemplate(transactionManager);
+        awaitDelivery();
+        subscriber.batches.clear();
+        subscriber.threadNames.clear();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like 'feed%'", Member.class)
+                .getResultList()
+                .forEach(em::remove);
+            em.createQuery("select t from Team t where t.name like 'feed%'", Team.class)
+                .getResultList()
+                .forEach(em::remove);
+        });
+    }
+
+    @Test
+    void committedTransactionIsPublishedAsOneOrderedBatch() throws InterruptedException {
+        Long memberId = tx.execute(status -> {
+            Team team = new Team("feedTeam");
+            em.persist(team);
+            Member member = new Member("feed1", 10, team);
+            em.persist(member);
+            em.flush();
+
+            member.setAge(11);
+            assertThat(subscriber.batches).isEmpty(); // 커밋 전에는 전달하지 않는다.
+            return member.getId();
+        });
+
+        awaitDelivery();
+        assertThat(subscriber.batches).hasSize(1);
+        List<ChangeEvent> events = subscriber.batches.get(0).getEvents();
+        assertThat(events).extracting("entity", "type")
+            .containsExactly(
+                tuple(ChangeEntity.TEAM, ChangeType.INSERT),
+                tuple(ChangeEntity.MEMBER, ChangeType.INSERT),
+                tuple(ChangeEntity.MEMBER, ChangeType.UPDATE));
+
+        ChangeEvent update = events.get(2);
+        assertThat(update.getId()).isEqualTo(memberId);
+        assertThat(update.getMemberBefore().getAge()).isEqualTo(10);
+        assertThat(update.getMemberAfter().getAge()).isEqualTo(11);
+        assertThat(update.getMemberAfter().getTeamId()).isEqualTo(events.get(0).getId());
+    }
+
+    @Test
+    void rolledBackTransactionIsDiscarded() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("feed2", 20));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        awaitDelivery();
+        assertThat(subscriber.batches).isEmpty();
+    }
+
+    @Test
+    void batchesAreDeliveredInOrderOnFeedThread() throws InterruptedException {
+        tx.executeWithoutResult(status -> em.persist(new Member("feed4", 40)));
+        tx.executeWithoutResult(status -> em.persist(new Member("feed5", 50)));
+
+        awaitDelivery();
+        assertThat(subscriber.batches).hasSize(2);
+        assertThat(subscriber.batches.get(1).getSequence()).isEqualTo(subscriber.batches.get(0).getSequence() + 1);
+        assertThat(subscriber.threadNames).containsOnly("change-feed");
+    }
+
+    @Test
+    void bulkUpdateIsPublishedPerMember() throws InterruptedException {
+        Long memberId = tx.execute(status -> {
+            Member member = new Member("feed3", 30);
+            em.persist(member);
+            return member.getId();
+        });
+        awaitDelivery();
+        subscriber.batches.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("feed3");
+        tx.executeWithoutResult(status -> memberBulkRepository.addAge(condition, 1));
+
+        awaitDelivery();
+        assertThat(subscriber.batches).singleElement()
+            .satisfies(batch -> assertThat(batch.hasBulk()).isFalse());
+        ChangeEvent update = subscriber.batches.get(0).getEvents().get(0);
+        assertThat(update.getType()).isEqualTo(ChangeType.UPDATE);
+        assertThat(update.getId()).isEqualTo(memberId);
+        assertThat(update.getMemberBefore().getAge()).isEqualTo(30);
+        assertThat(update.getMemberAfter().getAge()).isEqualTo(31);
+    }
+
+    @Test
+    void bulkDeleteIsPublishedPerMember() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("feedDelete");
+            em.persist(team);
+            em.persist(new Member("feed6", 60, team));
+            em.persist(new Member("feed7", 70, team));
+        });
+        awaitDelivery();
+        subscriber.batches.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("feedDelete");
+        tx.executeWithoutResult(status -> memberBulkRepository.delete(condition));
+
+        awaitDelivery();
+        assertThat(subscriber.batches).singleElement()
+            .satisfies(batch -> assertThat(batch.getEvents()).extracting("type", "memberBefore.username")
+                .containsExactly(
+                    tuple(ChangeType.DELETE, "feed6"),
+                    tuple(ChangeType.DELETE, "feed7")));
+    }
+
+    private void awaitDelivery() throws InterruptedException {
+        assertThat(changeFeed.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements ChangeSubscriber {
+
+        final List<ChangeBatch> batches = new CopyOnWriteArrayList<>();
+        final List<String> threadNames = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onChanges(ChangeBatch batch) {
+            batches.add(batch);
+            threadNames.add(Thread.currentThread().getName());
+        }
+    }
+}
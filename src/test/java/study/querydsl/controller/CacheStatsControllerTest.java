@@ -0,0 +1,31 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 운영 프로필처럼 통계를 끄면 0 으로 채운 응답 대신 503 을 돌려준다.
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+class CacheStatsControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    void statsAreUnavailableWhenStatisticsDisabled() throws Exception {
+        mvc.perform(get("/admin/cache/stats"))
+            .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void memberSearchCacheStatsDoNotDependOnHibernateStatistics() throws Exception {
+        mvc.perform(get("/admin/cache/member-search"))
+            .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 테스트 자체가 트랜잭션을 잡고 있으면 커넥션이 물려있으므로 @Transactional 을 붙이지 않는다.
+@AutoConfigureMockMvc
+@SpringBootTest
+class MemberControllerConnectionTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ActiveConnectionsRecorder recorder;
+
+    @BeforeEach
+    void before() {
+        recorder.activeConnections.clear();
+    }
+
+    @Test
+    void connectionsAreReturnedBeforeSerialization() throws Exception {
+        for (String uri : List.of("/v1/members?ageGoe=10", "/v2/members?size=5", "/v3/members?size=5", "/v4/members?size=5")) {
+            perform(uri);
+        }
+
+        // 응답 본문을 쓰기 직전 시점에 빌려간 커넥션이 하나도 없어야 한다.
+        assertThat(recorder.activeConnections).hasSize(4).containsOnly(0);
+    }
+
+    private void perform(String uri) throws Exception {
+        MvcResult result = mvc.perform(get(uri)).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        } else {
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        ActiveConnectionsRecorder activeConnectionsRecorder(DataSource dataSource) {
+            return new ActiveConnectionsRecorder(DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class));
+        }
+    }
+
+    @ControllerAdvice
+    static class ActiveConnectionsRecorder implements ResponseBodyAdvice<Object> {
+
+        final HikariDataSource hikari;
+        final List<Integer> activeConnections = new CopyOnWriteArrayList<>();
+
+        ActiveConnectionsRecorder(HikariDataSource hikari) {
+            this.hikari = hikari;
+        }
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return returnType.getContainingClass() == MemberController.class
+                || returnType.getContainingClass() == MemberSearchController.class;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            activeConnections.add(hikari.getHikariPoolMXBean().getActiveConnections());
+            return body;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.querydsl.service.MemberSearchExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+    "app.member-search-executor.mode=pool",
+    "app.member-search-executor.max-concurrency=1",
+    "app.member-search-executor.queue-capacity=1"
+})
+class PooledMemberSearchControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    MemberSearchExecutor memberSearchExecutor;
+
+    @Test
+    void searchRunsAsynchronouslyOnSearchPool() throws Exception {
+        MvcResult result = mvc.perform(get("/v1/members?ageGoe=10"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
+    @Test
+    void fullQueueIsRejectedWithServiceUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // 작업 스레드 하나와 대기열 한 칸을 채워둔다.
+        CompletableFuture<Boolean> running = memberSearchExecutor.submit(() -> await(release));
+        CompletableFuture<Boolean> queued = memberSearchExecutor.submit(() -> await(release));
+
+        try {
+            mvc.perform(get("/v1/members?ageGoe=10"))
+                .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
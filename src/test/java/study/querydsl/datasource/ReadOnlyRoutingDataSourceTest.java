@@ -0,0 +1,112 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 로컬 구성과 같이 primary / replica 두 풀이 같은 in-memory H2 를 보게 하고, 트랜잭션 속성에 따라 어느 풀에서 커넥션을 얻는지 확인한다.
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+    "app.datasource.replica.jdbc-url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+    "app.datasource.replica.username=sa",
+    "app.datasource.replica.password="
+})
+class ReadOnlyRoutingDataSourceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+
+    @BeforeEach
+    void before() {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readWrite.executeWithoutResult(status -> {
+            Team team = new Team("routingA");
+            em.persist(team);
+            em.persist(new Member("routing1", 10, team));
+            em.persist(new Member("routing2", 20, team));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        readWrite.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like 'routing%'", Member.class)
+                .getResultList()
+                .forEach(em::remove);
+            em.createQuery("select t from Team t where t.name like 'routing%'", Team.class)
+                .getResultList()
+                .forEach(em::remove);
+        });
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        assertThat(readOnly.execute(status -> activeConnections())).containsExactly(0, 1);
+        assertThat(readOnly.execute(status -> em.unwrap(Session.class).isDefaultReadOnly())).isTrue();
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        assertThat(readWrite.execute(status -> activeConnections())).containsExactly(1, 0);
+    }
+
+    @Test
+    void searchRunsAgainstReplica() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("routingA");
+
+        List<MemberTeamDto> result = readOnly.execute(status -> {
+            List<MemberTeamDto> members = memberRepository.search(condition);
+            assertThat(activeConnections()).containsExactly(0, 1);
+            return members;
+        });
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("routing1", "routing2");
+    }
+
+    // 첫 SQL 을 실행해 커넥션을 얻은 뒤 (primary, replica) 풀의 사용 중 커넥션 수
+    private int[] activeConnections() {
+        em.unwrap(Session.class).doWork(connection -> connection.isValid(1));
+        return new int[]{
+            primaryDataSource.getHikariPoolMXBean().getActiveConnections(),
+            replicaDataSource.getHikariPoolMXBean().getActiveConnections()};
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.entity;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QTeam.team;
+
+// 2차 캐시는 커밋된 데이터만 공유되므로 @Transactional 대신 트랜잭션을 직접 나눠서 확인한다.
+@SpringBootTest
+class TeamCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long teamId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        teamId = tx.execute(status -> {
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+            return teamC.getId();
+        });
+        statistics.clear();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username = 'cachedMember'", Member.class)
+                .getResultList()
+                .forEach(em::remove);
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    void teamIsServedFromSecondLevelCache() {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+
+        assertThat(regionStatistics().getHitCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void bulkUpdateEvictsTeamRegion() {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+            .update(team)
+            .set(team.name, "teamRenamed")
+            .where(team.id.eq(teamId))
+            .execute());
+
+        String name = tx.execute(status -> em.find(Team.class, teamId).getName());
+        assertThat(name).isEqualTo("teamRenamed");
+    }
+
+    // 회원 쪽(setTeam)만 바꿔도 캐시된 Team.members 가 남아있지 않아야 한다. (auto_evict_collection_cache)
+    @Test
+    void ownerSideChangeEvictsMembersCollection() {
+        int before = tx.execute(status -> em.find(Team.class, teamId).getMembers().size());
+
+        tx.executeWithoutResult(status -> {
+            Member member = new Member("cachedMember", 10);
+            member.setTeam(em.getReference(Team.class, teamId));
+            em.persist(member);
+        });
+
+        int after = tx.execute(status -> em.find(Team.class, teamId).getMembers().size());
+        assertThat(after).isEqualTo(before + 1);
+    }
+
+    private CacheRegionStatistics regionStatistics() {
+        return statistics.getCacheRegionStatistics(Team.class.getName());
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.memory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// 메모리 복사본은 커밋된 변경만 반영하므로 @Transactional 대신 트랜잭션을 직접 나눈다.
+@SpringBootTest(properties = "app.in-memory.enabled=true")
+class InMemoryMemberStoreTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    InMemoryMemberStore store;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long teamId;
+
+    @BeforeEach
+    void before() throws InterruptedException {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        awaitDelivery(); // 이전 테스트 정리분이 reload() 뒤에 반영되지 않도록
+        store.reload();
+
+        teamId = tx.execute(status -> {
+            Team team = new Team("memoryTeam");
+            em.persist(team);
+            em.persist(new Member("memory1", 10, team));
+            em.persist(new Member("memory2", 20, team));
+            em.persist(new Member("memory3", 30));
+            return team.getId();
+        });
+        awaitDelivery();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like 'memory%'", Member.class)
+                .getResultList()
+                .forEach(em::remove);
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    void searchIsAnsweredFromMemory() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("memoryTeam");
+        condition.setAgeGoe(15);
+
+        statistics.clear();
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(result).extracting("username").containsExactly("memory2");
+        assertThat(result.get(0).getTeamName()).isEqualTo("memoryTeam");
+    }
+
+    @Test
+    void committedChangesAreApplied() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            Member member = em.createQuery("select m from Member m where m.username = 'memory3'", Member.class).getSingleResult();
+            member.changeTeam(em.find(Team.class, teamId));
+            member.setAge(40);
+        });
+        awaitDelivery();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("memoryTeam");
+
+        assertThat(memberRepository.search(condition)).extracting("username", "age")
+            .containsExactly(
+                tuple("memory1", 10),
+                tuple("memory2", 20),
+                tuple("memory3", 40));
+    }
+
+    @Test
+    void rolledBackChangesAreIgnored() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("memory4", 50, em.find(Team.class, teamId)));
+            status.setRollbackOnly();
+        });
+        awaitDelivery();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("memory4");
+
+        assertThat(memberRepository.search(condition)).isEmpty();
+    }
+
+    private void awaitDelivery() throws InterruptedException {
+        assertThat(changeFeed.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.memory;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MemberIndexTest {
+
+    MemberIndex index = MemberIndex.builder(4)
+        .addTeam(1L, "teamA")
+        .addTeam(2L, "teamB")
+        .addMember(1L, "member1", 40, 1L)
+        .addMember(2L, "member2", 10, 1L)
+        .addMember(3L, "회원3", 30, 2L)
+        .addMember(4L, "member4", 20, null)
+        .addMember(5L, "member1", 20, 2L)
+        .build();
+
+    @Test
+    void ageRangeIsReturnedInAgeOrder() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(35);
+
+        assertThat(index.search(condition, id -> false)).extracting("memberId", "age", "teamName")
+            .containsExactly(
+                tuple(4L, 20, null),
+                tuple(5L, 20, "teamB"),
+                tuple(3L, 30, "teamB"));
+    }
+
+    @Test
+    void usernameAndTeamNameUseHashIndexes() {
+        MemberSearchCondition username = new MemberSearchCondition();
+        username.setUsername("member1");
+        assertThat(index.search(username, id -> false)).extracting("memberId")
+            .containsExactlyInAnyOrder(1L, 5L);
+
+        MemberSearchCondition korean = new MemberSearchCondition();
+        korean.setUsername("회원3");
+        assertThat(index.search(korean, id -> false)).extracting("memberId").containsExactly(3L);
+
+        MemberSearchCondition team = new MemberSearchCondition();
+        team.setTeamName("teamA");
+        team.setAgeGoe(20);
+        assertThat(index.search(team, id -> false)).extracting("memberId").containsExactly(1L);
+
+        MemberSearchCondition unknownTeam = new MemberSearchCondition();
+        unknownTeam.setTeamName("teamC");
+        assertThat(index.search(unknownTeam, id -> false)).isEmpty();
+    }
+
+    @Test
+    void teamsSharingNameAreMerged() {
+        MemberIndex sameName = MemberIndex.builder(4)
+            .addTeam(1L, "teamA")
+            .addTeam(2L, "teamA")
+            .addTeam(3L, "teamB")
+            .addMember(1L, "member1", 30, 1L)
+            .addMember(2L, "member2", 10, 2L)
+            .addMember(3L, "member3", 20, 1L)
+            .addMember(4L, "member4", 20, 3L)
+            .build();
+
+        MemberSearchCondition team = new MemberSearchCondition();
+        team.setTeamName("teamA");
+        assertThat(sameName.search(team, id -> false)).extracting("memberId", "teamId")
+            .containsExactly(
+                tuple(2L, 2L),
+                tuple(3L, 1L),
+                tuple(1L, 1L));
+
+        MemberSearchCondition usernameAndTeam = new MemberSearchCondition();
+        usernameAndTeam.setUsername("member2");
+        usernameAndTeam.setTeamName("teamA");
+        assertThat(sameName.search(usernameAndTeam, id -> false)).extracting("memberId").containsExactly(2L);
+    }
+
+    @Test
+    void nullUsernameStaysNull() {
+        MemberIndex withNull = MemberIndex.builder(2)
+            .addMember(1L, null, 10, null)
+            .addMember(2L, "", 20, null)
+            .build();
+
+        assertThat(withNull.search(new MemberSearchCondition(), id -> false)).extracting("username")
+            .containsExactly(null, "");
+
+        List<String> usernames = new ArrayList<>();
+        withNull.forEach((id, username, age, teamId) -> usernames.add(username));
+        assertThat(usernames).containsExactly(null, "");
+    }
+
+    @Test
+    void excludedIdsAreSkipped() {
+        List<MemberTeamDto> result = index.search(new MemberSearchCondition(), id -> id == 2L);
+
+        assertThat(result).extracting("memberId").containsExactly(4L, 5L, 3L, 1L);
+    }
+
+    @Test
+    void forEachRoundTripsEveryMember() {
+        List<String> rows = new ArrayList<>();
+        index.forEach((id, username, age, teamId) -> rows.add(id + ":" + username + ":" + age + ":" + teamId));
+
+        assertThat(rows).containsExactlyInAnyOrder(
+            "1:member1:40:1", "2:member2:10:1", "3:회원3:30:2", "4:member4:20:null", "5:member1:20:2");
+        assertThat(index.footprintBytes()).isPositive();
+    }
+}
@@ -0,0 +1,69 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.repository.MemberRepository;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "app.query-budget.mode=reject")
+class QueryBudgetGuardTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    void rejectedRequestIsServiceUnavailable() throws Exception {
+        mvc.perform(get("/test/over-budget"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(content().string(containsString("budget=1")));
+    }
+
+    @Test
+    void requestWithinBudgetSucceeds() throws Exception {
+        mvc.perform(get("/test/within-budget"))
+            .andExpect(status().isOk());
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        OverBudgetController overBudgetController(MemberRepository memberRepository) {
+            return new OverBudgetController(memberRepository);
+        }
+    }
+
+    @RestController
+    static class OverBudgetController {
+
+        final MemberRepository memberRepository;
+
+        OverBudgetController(MemberRepository memberRepository) {
+            this.memberRepository = memberRepository;
+        }
+
+        @QueryBudget(max = 1)
+        @GetMapping("/test/over-budget")
+        public long overBudget() {
+            return memberRepository.count() + memberRepository.count();
+        }
+
+        @QueryBudget(max = 1)
+        @GetMapping("/test/within-budget")
+        public long withinBudget() {
+            return memberRepository.count();
+        }
+    }
+}
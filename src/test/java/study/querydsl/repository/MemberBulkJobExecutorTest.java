@@ -0,0 +1,115 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 별도 트랜잭션으로 커밋되므로 @Transactional 대신 직접 데이터를 만들고 지운다.
+@SpringBootTest
+class MemberBulkJobExecutorTest {
+
+    static final String JOB_NAME = "add-age-bulkJobTeam";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberBulkJobExecutor memberBulkJobExecutor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    MemberSearchCondition condition;
+    List<Long> memberIds;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        condition = new MemberSearchCondition();
+        condition.setTeamName("bulkJobTeam");
+
+        memberIds = tx.execute(status -> {
+            Team team = new Team("bulkJobTeam");
+            em.persist(team);
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                Member member = new Member("bulkJob" + i, 10, team);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from BulkJobCheckpoint c where c.jobName = :jobName")
+                .setParameter("jobName", JOB_NAME)
+                .executeUpdate();
+            em.createQuery("delete from Member m where m.username like 'bulkJob%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'bulkJobTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    void updatesAllChunksInParallel() {
+        BulkJobResult result = memberBulkJobExecutor.addAge(JOB_NAME, condition, 1, 7);
+
+        assertThat(result.getAffectedRows()).isEqualTo(30);
+        assertThat(result.getSkippedChunks()).isZero();
+        assertThat(result.getProcessedChunks()).isEqualTo(result.getTotalChunks());
+        assertThat(ages()).containsOnly(11);
+    }
+
+    @Test
+    void restartSkipsCompletedChunks() {
+        BulkJobResult first = memberBulkJobExecutor.addAge(JOB_NAME, condition, 1, 7);
+
+        // 마지막 청크가 실패했던 것처럼 체크포인트 하나를 지우고 나이를 되돌린다.
+        BulkJobCheckpoint last = tx.execute(status -> {
+            BulkJobCheckpoint checkpoint = em.createQuery(
+                    "select c from BulkJobCheckpoint c where c.jobName = :jobName order by c.chunkFrom desc", BulkJobCheckpoint.class)
+                .setParameter("jobName", JOB_NAME)
+                .setMaxResults(1)
+                .getSingleResult();
+            em.createQuery("update Member m set m.age = m.age - 1 where m.id between :from and :to and m.username like 'bulkJob%'")
+                .setParameter("from", checkpoint.getChunkFrom())
+                .setParameter("to", checkpoint.getChunkTo())
+                .executeUpdate();
+            em.remove(checkpoint);
+            return checkpoint;
+        });
+
+        BulkJobResult second = memberBulkJobExecutor.addAge(JOB_NAME, condition, 1, 7);
+
+        assertThat(second.getTotalChunks()).isEqualTo(first.getTotalChunks());
+        assertThat(second.getSkippedChunks()).isEqualTo(first.getTotalChunks() - 1);
+        assertThat(second.getProcessedChunks()).isEqualTo(1);
+        assertThat(second.getAffectedRows()).isEqualTo(last.getAffectedRows());
+        assertThat(ages()).containsOnly(11);
+    }
+
+    private List<Integer> ages() {
+        return tx.execute(status -> em
+            .createQuery("select m.age from Member m where m.id in :ids", Integer.class)
+            .setParameter("ids", memberIds)
+            .getResultList());
+    }
+}
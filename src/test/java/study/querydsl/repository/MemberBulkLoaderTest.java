@@ -0,0 +1,65 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberBulkLoaderTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void loadWithJpa() {
+        BulkLoadResult result = memberBulkLoader.load(2, 10, BulkLoadMode.JPA);
+
+        assertThat(result.getRows()).isEqualTo(12);
+        assertLoaded();
+    }
+
+    @Test
+    void loadWithJdbc() {
+        BulkLoadResult result = memberBulkLoader.load(2, 10, BulkLoadMode.JDBC);
+
+        assertThat(result.getRows()).isEqualTo(12);
+        assertLoaded();
+
+        // JDBC 로 넣은 뒤에도 JPA 로 저장하는 회원과 id 가 겹치지 않아야 한다.
+        Member member = new Member("memberX", 50);
+        em.persist(member);
+        em.flush();
+        assertThat(memberRepository.findById(member.getId())).contains(member);
+    }
+
+    private void assertLoaded() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setUsername("member3");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        assertThat(result).extracting("age").containsExactly(3);
+
+        List<Team> teams = em.createQuery("select t from Team t where t.name in ('teamA', 'teamB')", Team.class)
+            .getResultList();
+        assertThat(teams).hasSize(2);
+    }
+}
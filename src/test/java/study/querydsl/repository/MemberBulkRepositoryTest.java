@@ -0,0 +1,105 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@Transactional
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    Member memberA;
+    Member memberC;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member("memberC", 30, teamB));
+        em.persist(new Member("memberD", 40, teamB));
+        em.flush();
+        em.clear();
+
+        memberA = em.createQuery("select m from Member m where m.username = 'memberA'", Member.class).getSingleResult();
+        memberC = em.createQuery("select m from Member m where m.username = 'memberC'", Member.class).getSingleResult();
+    }
+
+    @Test
+    void addAgeReloadsOnlyAffectedMembers() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long updated = memberBulkRepository.addAge(condition, 1);
+
+        // 관리 중인 회원 조회 + update + 영향받은 회원 재조회(in 절 한 번). 회원 수만큼 refresh 하지 않는다.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+        // em.clear() 없이도 영속성 컨텍스트의 memberA 는 최신 값, 조건에 안 걸린 memberC 는 그대로 관리 상태
+        assertThat(updated).isEqualTo(2);
+        assertThat(em.find(Member.class, memberA.getId()).getAge()).isEqualTo(11);
+        assertThat(memberC.getAge()).isEqualTo(30);
+        assertThat(em.contains(memberC)).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void addAgeKeepsMembersInLoadedTeamCollection() {
+        Team teamA = memberA.getTeam();
+        assertThat(teamA.getMembers()).hasSize(2);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberBulkRepository.addAge(condition, 1);
+
+        // 수정된 회원은 삭제된 게 아니므로 이미 로딩된 컬렉션에 새 나이로 그대로 남아 있어야 한다.
+        assertThat(teamA.getMembers())
+            .extracting(Member::getUsername, Member::getAge)
+            .containsExactlyInAnyOrder(tuple("memberA", 11), tuple("memberB", 21));
+        assertThat(teamA.getMembers()).allMatch(em::contains);
+    }
+
+    @Test
+    void deleteDetachesAffectedMembers() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+
+        long deleted = memberBulkRepository.delete(condition);
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(em.contains(memberC)).isFalse();
+        assertThat(em.contains(memberA)).isTrue();
+    }
+
+    @Test
+    void chunkedUpdateRequiresNoTransaction() {
+        assertThatThrownBy(() -> memberBulkRepository.addAgeInChunks(new MemberSearchCondition(), 1, 100))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
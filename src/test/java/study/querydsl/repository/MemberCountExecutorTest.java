@@ -0,0 +1,62 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountExecutorTest {
+
+    MemberCountExecutor countExecutor = new MemberCountExecutor(new NoOpTransactionManager(), true, 100, 1);
+
+    @AfterEach
+    void after() {
+        countExecutor.shutdown();
+    }
+
+    @Test
+    void returnsExactCountWhenFinishedInTime() {
+        CompletableFuture<Long> count = countExecutor.submit(() -> 42L);
+
+        assertThat(countExecutor.await(count)).hasValue(42L);
+    }
+
+    @Test
+    void returnsEmptyOnTimeout() {
+        CompletableFuture<Long> neverCompletes = new CompletableFuture<>();
+
+        assertThat(countExecutor.await(neverCompletes)).isEmpty();
+    }
+
+    @Test
+    void parallelOnlyOutsideWriteTransaction() {
+        assertThat(countExecutor.canRunInParallel()).isTrue();
+        assertThat(new MemberCountExecutor(new NoOpTransactionManager(), false, 100, 1).canRunInParallel()).isFalse();
+    }
+
+    // DB 없이 TransactionTemplate 만 통과시키기 위한 트랜잭션 매니저
+    static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
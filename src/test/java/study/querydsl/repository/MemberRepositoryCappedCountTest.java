@@ -0,0 +1,51 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest(properties = "app.count.cap=3")
+class MemberRepositoryCappedCountTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void pageBeyondCapStillHasNext() {
+        Team team = new Team("cappedA");
+        em.persist(team);
+        for (int i = 0; i < 7; i++) {
+            em.persist(new Member("capped" + i, i * 10, team));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cappedA");
+
+        // offset 4 는 상한(3)을 넘었지만 페이지가 꽉 찼으므로 다음 페이지가 있는 것으로 본다.
+        Page<MemberTeamDto> page = memberRepository.searchPage(condition, PageRequest.of(2, 2), CountStrategy.CAPPED);
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.getTotalElements()).isEqualTo(7);
+        assertThat(((EstimatedPage<MemberTeamDto>) page).isExactTotal()).isFalse();
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// 병렬 count 는 쓰기 트랜잭션 안에서는 쓰지 않으므로 @Transactional 대신 트랜잭션을 직접 나눈다.
+@SpringBootTest(properties = {"app.parallel-count.enabled=true", "app.parallel-count.timeout-ms=50"})
+class MemberRepositoryParallelCountTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @SpyBean
+    MemberCountExecutor countExecutor;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("parallelA");
+            em.persist(team);
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("parallel" + i, i * 10, team));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like 'parallel%'", Member.class)
+                .getResultList()
+                .forEach(em::remove);
+            em.createQuery("select t from Team t where t.name like 'parallel%'", Team.class)
+                .getResultList()
+                .forEach(em::remove);
+        });
+    }
+
+    @Test
+    void exactTotalWhenCountFinishesInTime() {
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition(), PageRequest.of(0, 2));
+
+        assertThat(page).isNotInstanceOf(EstimatedPage.class);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void estimatedPageWhenCountTimesOut() {
+        doReturn(new CompletableFuture<Long>()).when(countExecutor).submit(any());
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition(), PageRequest.of(0, 2));
+
+        assertThat(page).isInstanceOf(EstimatedPage.class);
+        assertThat(((EstimatedPage<MemberTeamDto>) page).isExactTotal()).isFalse();
+        assertThat(page.getContent()).hasSize(2);
+        // 실제 5건이 아니라 본 만큼(2건)에 다음 페이지가 있다는 1건을 더한 추정값
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void lastPageDoesNotWaitForCount() {
+        CompletableFuture<Long> neverCompletes = new CompletableFuture<>();
+        doReturn(neverCompletes).when(countExecutor).submit(any());
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition(), PageRequest.of(2, 2));
+
+        // 마지막 페이지(1건)라서 count 없이도 정확한 전체 건수를 안다.
+        assertThat(page).isNotInstanceOf(EstimatedPage.class);
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(neverCompletes).isCancelled();
+        verify(countExecutor, never()).await(any());
+    }
+
+    private MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("parallelA");
+        return condition;
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.ExpectedQueries;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberRepositoryQueryCountTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < 5; j++) {
+                em.persist(new Member("member" + i + "-" + j, j * 10, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @ExpectedQueries(max = 1)
+    void searchPageComplexShortFirstPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    @ExpectedQueries(max = 1)
+    void findMembersWithTeamHasNoNPlusOne() {
+        List<Member> members = memberRepository.findMembers(new MemberSearchCondition(), FetchPlan.withTeam());
+
+        assertThat(members).extracting(m -> m.getTeam().getName()).hasSize(50);
+    }
+
+    @Test
+    @ExpectedQueries(max = 2)
+    void findMembersBatchedHasNoNPlusOne() {
+        List<Member> members = memberRepository.findMembers(new MemberSearchCondition(), FetchPlan.batched());
+
+        assertThat(members).extracting(m -> m.getTeam().getName()).hasSize(50);
+    }
+}
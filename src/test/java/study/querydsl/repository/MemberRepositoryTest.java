@@ -1,11 +1,15 @@
 package study.querydsl.repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -14,8 +18,12 @@ import study.querydsl.entity.Team;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @Transactional
@@ -28,6 +36,9 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberSearchPlanCache planCache;
+
     @Test
     void basicTest() {
         Member member = new Member("member1", 10);
@@ -72,6 +83,29 @@ class MemberRepositoryTest {
             .containsExactly("memberD");
     }
 
+    @Test
+    void searchUsesCachedPlanPerShape() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        memberRepository.search(condition);
+
+        long hitCount = planCache.getHitCount();
+        long missCount = planCache.getMissCount();
+
+        // 같은 shape 라면 값이 달라도 캐시된 JPQL 을 재사용한다.
+        condition.setAgeGoe(5);
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("memberA", "memberB");
+        assertThat(planCache.getHitCount()).isEqualTo(hitCount + 1);
+        assertThat(planCache.getMissCount()).isEqualTo(missCount);
+    }
+
     @Test
     void searchPageSimple() {
         Team teamA = new Team("teamA");
@@ -99,6 +133,194 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("memberA", "memberB", "memberC");
     }
 
+    @Test
+    void searchPageComplex() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member memberA = new Member("memberA", 10, teamA);
+        Member memberB = new Member("memberB", 20, teamA);
+        Member memberC = new Member("memberC", 30, teamB);
+        Member memberD = new Member("memberD", 40, teamB);
+        em.persist(memberA);
+        em.persist(memberB);
+        em.persist(memberC);
+        em.persist(memberD);
+
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 첫 페이지인데 컨텐츠가 페이지 크기보다 작으면 count 쿼리를 생략한다.
+        Page<MemberTeamDto> firstShort = countStatements(1, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)));
+        assertThat(firstShort.getTotalElements()).isEqualTo(4);
+
+        // 컨텐츠가 페이지 크기만큼 가득 차 있으면 count 쿼리가 필요하다.
+        Page<MemberTeamDto> firstFull = countStatements(2, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 3)));
+        assertThat(firstFull.getTotalElements()).isEqualTo(4);
+        assertThat(firstFull.getContent()).extracting("username").containsExactly("memberA", "memberB", "memberC");
+
+        // 마지막 페이지는 offset + 컨텐츠 크기로 전체 카운트를 계산한다.
+        Page<MemberTeamDto> last = countStatements(1, () -> memberRepository.searchPageComplex(condition, PageRequest.of(1, 3)));
+        assertThat(last.getTotalElements()).isEqualTo(4);
+        assertThat(last.getContent()).extracting("username").containsExactly("memberD");
+
+        // 팀 조건이 있을 때도 전체 카운트가 맞아야 한다.
+        condition.setTeamName("teamB");
+        Page<MemberTeamDto> teamFull = countStatements(2, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 1)));
+        assertThat(teamFull.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void searchPageWithCountStrategy() {
+        saveTeamsWithMembers(5);
 
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        // 상한(app.count.cap) 보다 적으면 capped count 도 정확한 값이다.
+        Page<MemberTeamDto> capped = memberRepository.searchPage(condition, PageRequest.of(0, 2), CountStrategy.CAPPED);
+        assertThat(capped).isInstanceOf(EstimatedPage.class);
+        assertThat(capped.getTotalElements()).isEqualTo(5);
+        assertThat(((EstimatedPage<MemberTeamDto>) capped).isExactTotal()).isTrue();
+
+        // H2 는 EXPLAIN 예상 로우 수가 없으므로 capped count 로 대신한다.
+        Page<MemberTeamDto> estimated = memberRepository.searchPage(condition, PageRequest.of(1, 2), CountStrategy.ESTIMATED);
+        assertThat(estimated.getTotalElements()).isEqualTo(5);
+        assertThat(estimated.getContent()).hasSize(2);
+
+        // 마지막 페이지는 세지 않고 offset + 컨텐츠 크기로 계산한다.
+        Page<MemberTeamDto> last = memberRepository.searchPage(condition, PageRequest.of(2, 2), CountStrategy.CAPPED);
+        assertThat(last.getTotalElements()).isEqualTo(5);
+        assertThat(last.getContent()).hasSize(1);
+    }
+
+    @Test
+    void contradictoryConditionSkipsDatabase() {
+        saveTeamsWithMembers(2);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(20);
 
-}
\ No newline at end of file
+        assertThat(countStatements(0, () -> memberRepository.search(condition))).isEmpty();
+        assertThat(countStatements(0, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 10))).getTotalElements()).isZero();
+        assertThat(countStatements(0, () -> memberRepository.searchByCursor(condition, null, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    void searchByCursor() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member memberA = new Member("memberA", 30, teamA);
+        Member memberB = new Member("memberB", 10, teamA);
+        Member memberC = new Member("memberC", 20, teamA);
+        Member memberD = new Member("memberD", 20, teamA);
+        Member memberE = new Member("memberE", 40, teamA);
+        em.persist(memberA);
+        em.persist(memberB);
+        em.persist(memberC);
+        em.persist(memberD);
+        em.persist(memberE);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(30);
+
+        MemberCursorResult first = memberRepository.searchByCursor(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("memberB", "memberC");
+        assertThat(first.isHasNext()).isTrue();
+
+        // 같은 나이(20)가 페이지 경계에 걸쳐도 id 로 이어서 조회한다.
+        MemberCursorResult second = memberRepository.searchByCursor(condition, first.getNextCursor(), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("memberD", "memberA");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchByCursorWithInvalidToken() {
+        assertThatThrownBy(() -> memberRepository.searchByCursor(new MemberSearchCondition(), "not-a-cursor", 2))
+            .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void searchStream() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member("memberC", 30, teamB));
+        em.persist(new Member("memberD", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, 1)) {
+            assertThat(stream.map(MemberTeamDto::getUsername)).containsExactly("memberC", "memberD");
+        }
+    }
+
+    @Test
+    void findMembersWithFetchPlan() {
+        assertFetchPlanStatements(FetchPlan.withTeam(), 1);
+    }
+
+    @Test
+    void findMembersWithEntityGraph() {
+        assertFetchPlanStatements(FetchPlan.withTeamGraph(), 1);
+    }
+
+    @Test
+    void findMembersWithBatchFetch() {
+        // 회원 조회 1 + 팀 in 절 조회 1 (팀 수가 @BatchSize 이하)
+        assertFetchPlanStatements(FetchPlan.batched(), 2);
+    }
+
+    // 조회 결과가 늘어나도 팀 이름까지 접근하는 데 드는 쿼리 수는 같아야 한다.
+    private void assertFetchPlanStatements(FetchPlan fetchPlan, long expected) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        saveTeamsWithMembers(2);
+        List<String> small = countStatements(expected, () -> teamNamesOf(memberRepository.findMembers(condition, fetchPlan)));
+        assertThat(small).hasSize(4);
+
+        saveTeamsWithMembers(20);
+        List<String> large = countStatements(expected, () -> teamNamesOf(memberRepository.findMembers(condition, fetchPlan)));
+        assertThat(large).hasSize(44);
+    }
+
+    private void saveTeamsWithMembers(int teamCount) {
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i + "-1", 10, team));
+            em.persist(new Member("member" + i + "-2", 20, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private List<String> teamNamesOf(List<Member> members) {
+        return members.stream()
+            .map(m -> m.getTeam().getName())
+            .collect(Collectors.toList());
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> supplier) {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        T result = supplier.get();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.SearchShapePlanDto;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberSearchExplainerTest {
+
+    @Autowired
+    MemberSearchExplainer memberSearchExplainer;
+
+    @Test
+    void explainAllShapes() {
+        List<SearchShapePlanDto> plans = memberSearchExplainer.explainAll();
+
+        assertThat(plans).hasSize(MemberSearchPredicates.SHAPE_COUNT);
+        assertThat(plans).allSatisfy(plan -> assertThat(plan.getPlan()).isNotEmpty());
+
+        // 조건이 없으면 당연히 풀 스캔
+        assertThat(plans.get(0).isFullScan()).isTrue();
+        // username 조건은 idx_member_username_age 를 탄다.
+        assertThat(plans.get(MemberSearchPredicates.USERNAME).isFullScan()).isFalse();
+    }
+}
@@ -0,0 +1,167 @@
+package study.querydsl.stats;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.change.ChangeBatch;
+import study.querydsl.change.ChangeEvent;
+import study.querydsl.change.ChangeFeed;
+import study.querydsl.change.ChangeType;
+import study.querydsl.change.MemberSnapshot;
+import study.querydsl.controller.TeamController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 통계는 커밋된 변경만 반영하므로 @Transactional 대신 트랜잭션을 직접 나눈다.
+@SpringBootTest(properties = "app.team-stats.enabled=true")
+class TeamStatsStoreTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    TeamStatsStore store;
+
+    @Autowired
+    TeamStatsUpdater updater;
+
+    @Autowired
+    TeamController teamController;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+
+    @BeforeEach
+    void before() throws InterruptedException {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        awaitDelivery(); // 이전 테스트 정리분이 reload() 뒤에 반영되지 않도록
+        store.reload();
+
+        tx.executeWithoutResult(status -> {
+            Team statsA = new Team("statsA");
+            Team statsB = new Team("statsB");
+            em.persist(statsA);
+            em.persist(statsB);
+            em.persist(new Member("stats1", 10, statsA));
+            em.persist(new Member("stats2", 20, statsA));
+            em.persist(new Member("stats3", 30, statsB));
+        });
+        awaitDelivery();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like 'stats%'", Member.class)
+                .getResultList()
+                .forEach(em::remove);
+            em.createQuery("select t from Team t where t.name like 'stats%'", Team.class)
+                .getResultList()
+                .forEach(em::remove);
+        });
+    }
+
+    @Test
+    void statsAreServedWithoutQuery() {
+        statistics.clear();
+        List<TeamStatsDto> result = teamController.teamStats();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(result).filteredOn(stats -> "statsA".equals(stats.getTeamName())).singleElement()
+            .satisfies(stats -> {
+                assertThat(stats.getCount()).isEqualTo(2);
+                assertThat(stats.getSum()).isEqualTo(30);
+                assertThat(stats.getAvg()).isEqualTo(15);
+                assertThat(stats.getMax()).isEqualTo(20);
+                assertThat(stats.getMin()).isEqualTo(10);
+            });
+        assertThat(result).isEqualTo(store.queryStats());
+    }
+
+    @Test
+    void changeTeamUpdateAndDeleteAreAppliedIncrementally() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            Team statsB = em.createQuery("select t from Team t where t.name = 'statsB'", Team.class).getSingleResult();
+            Member stats2 = em.createQuery("select m from Member m where m.username = 'stats2'", Member.class).getSingleResult();
+            stats2.changeTeam(statsB);
+            stats2.setAge(40);
+
+            em.remove(em.createQuery("select m from Member m where m.username = 'stats3'", Member.class).getSingleResult());
+            em.persist(new Member("stats4", 50, statsB));
+        });
+        awaitDelivery();
+
+        List<TeamStatsDto> result = store.stats();
+
+        assertThat(result).filteredOn(stats -> "statsB".equals(stats.getTeamName())).singleElement()
+            .satisfies(stats -> {
+                assertThat(stats.getCount()).isEqualTo(2);
+                assertThat(stats.getMax()).isEqualTo(50);
+                assertThat(stats.getMin()).isEqualTo(40);
+            });
+        assertThat(result).isEqualTo(store.queryStats());
+    }
+
+    @Test
+    void bulkUpdateIsAppliedIncrementally() throws InterruptedException {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("statsA");
+        tx.executeWithoutResult(status -> memberBulkRepository.addAge(condition, 5));
+        awaitDelivery();
+
+        assertThat(store.stats()).filteredOn(stats -> "statsA".equals(stats.getTeamName())).singleElement()
+            .satisfies(stats -> assertThat(stats.getSum()).isEqualTo(40));
+        assertThat(store.stats()).isEqualTo(store.queryStats());
+    }
+
+    @Test
+    void batchAlreadySeenByReloadIsNotCountedTwice() throws InterruptedException {
+        Member stats5 = tx.execute(status -> {
+            Team statsA = em.createQuery("select t from Team t where t.name = 'statsA'", Team.class).getSingleResult();
+            Member member = new Member("stats5", 60, statsA);
+            em.persist(member);
+            return member;
+        });
+        awaitDelivery();
+        store.reload();
+
+        // reload() 의 집계에 이미 들어간 커밋의 묶음이 뒤늦게 전달된 경우
+        MemberSnapshot after = new MemberSnapshot(stats5.getId(), "stats5", 60, stats5.getTeam().getId());
+        updater.onChanges(new ChangeBatch(store.getLoadedSequence(),
+            List.of(ChangeEvent.member(ChangeType.INSERT, stats5.getId(), null, after))));
+
+        assertThat(store.stats()).filteredOn(stats -> "statsA".equals(stats.getTeamName())).singleElement()
+            .satisfies(stats -> assertThat(stats.getCount()).isEqualTo(3));
+        assertThat(store.stats()).isEqualTo(store.queryStats());
+    }
+
+    private void awaitDelivery() throws InterruptedException {
+        assertThat(changeFeed.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
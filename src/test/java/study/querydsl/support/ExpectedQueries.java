@@ -0,0 +1,20 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 본문(@BeforeEach 제외)에서 실행되는 SQL 수가 max 이하인지 검증한다.
+ * p6spy 로 감싼 DataSource 를 거치는 모든 SQL 이 대상이다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryCountExtension.class)
+public @interface ExpectedQueries {
+
+    int max();
+}
@@ -0,0 +1,36 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import study.querydsl.metrics.SqlContext;
+import study.querydsl.metrics.SqlRequestStats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryCountExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlRequestStats stats = new SqlRequestStats(context.getDisplayName());
+        context.getStore(NAMESPACE).put(SqlRequestStats.class, stats);
+        SqlContext.bindRequest(stats);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlContext.unbindRequest();
+
+        SqlRequestStats stats = context.getStore(NAMESPACE).remove(SqlRequestStats.class, SqlRequestStats.class);
+        ExpectedQueries expected = context.getRequiredTestMethod().getAnnotation(ExpectedQueries.class);
+        if (stats == null || expected == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        assertThat(stats.getStatementCount())
+            .as("SQL statements executed by %s", context.getDisplayName())
+            .isLessThanOrEqualTo(expected.max());
+    }
+}